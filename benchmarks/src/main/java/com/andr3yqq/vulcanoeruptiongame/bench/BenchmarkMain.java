@@ -0,0 +1,26 @@
+package com.andr3yqq.vulcanoeruptiongame.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the JMH benchmarks with the usual command line options and always attaches the GC
+ * profiler, so every report carries allocation rate next to throughput.
+ */
+public final class BenchmarkMain {
+
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+        CommandLineOptions cli = new CommandLineOptions(args);
+        new Runner(new OptionsBuilder()
+                .parent(cli)
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
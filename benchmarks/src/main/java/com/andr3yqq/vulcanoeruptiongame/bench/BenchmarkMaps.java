@@ -0,0 +1,62 @@
+package com.andr3yqq.vulcanoeruptiongame.bench;
+
+import com.andr3yqq.vulcanoeruptiongame.model.DifficultyLevel;
+import com.andr3yqq.vulcanoeruptiongame.model.GameMap;
+import com.andr3yqq.vulcanoeruptiongame.model.RandomMapGenerator;
+import com.andr3yqq.vulcanoeruptiongame.model.SimulationConfig;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Shared fixtures. Procedural maps honour the size and citizen parameters; the hand-made presets
+ * ignore them.
+ */
+final class BenchmarkMaps {
+    static final long SEED = 42L;
+    static final int SAFE_ZONES = 3;
+
+    private BenchmarkMaps() {
+    }
+
+    static GameMap create(DifficultyLevel difficulty, int mapSize, int citizens) {
+        if (difficulty.isProcedural()) {
+            return RandomMapGenerator.generate(mapSize, mapSize, citizens, SAFE_ZONES, SEED);
+        }
+        return difficulty.createConfig(SEED).getMap();
+    }
+
+    /**
+     * Obstacle-free square: the volcano in the middle, safe zones on the edges and houses at
+     * random, i.e. the best case for searches guided by a heuristic.
+     */
+    static GameMap open(int mapSize, int citizens) {
+        char[][] rows = new char[mapSize][mapSize];
+        for (char[] row : rows) {
+            Arrays.fill(row, '.');
+        }
+        rows[mapSize / 2][mapSize / 2] = 'V';
+        rows[0][mapSize / 3] = 'S';
+        rows[mapSize - 1][2 * mapSize / 3] = 'S';
+        rows[mapSize / 3][mapSize - 1] = 'S';
+        Random random = new Random(SEED);
+        for (int placed = 0; placed < citizens; ) {
+            int x = random.nextInt(mapSize);
+            int y = random.nextInt(mapSize);
+            if (rows[y][x] == '.') {
+                rows[y][x] = 'H';
+                placed++;
+            }
+        }
+        String[] template = new String[mapSize];
+        for (int y = 0; y < mapSize; y++) {
+            template[y] = new String(rows[y]);
+        }
+        return GameMap.fromTemplate(template);
+    }
+
+    static SimulationConfig config(DifficultyLevel difficulty, GameMap map) {
+        return new SimulationConfig(map, difficulty.getBarricadeActions(), difficulty.getOpenRoadActions(),
+                difficulty.getLavaInterval());
+    }
+}
@@ -0,0 +1,71 @@
+package com.andr3yqq.vulcanoeruptiongame.bench;
+
+import com.andr3yqq.vulcanoeruptiongame.model.DifficultyLevel;
+import com.andr3yqq.vulcanoeruptiongame.model.GameMap;
+import com.andr3yqq.vulcanoeruptiongame.model.RandomMapGenerator;
+import com.andr3yqq.vulcanoeruptiongame.model.SimulationOutcome;
+import com.andr3yqq.vulcanoeruptiongame.simulation.SimulationEngine;
+import com.andr3yqq.vulcanoeruptiongame.simulation.TickReport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * City-scale runs: one citizen per house on a map with about five cells per citizen. The first
+ * tick plans every path, later ticks mostly move citizens and replan around new lava.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class CityEvacuationBenchmark {
+    private static final int CELLS_PER_CITIZEN = 5;
+
+    @Param({"100000", "1000000"})
+    private int citizens;
+
+    private GameMap layout;
+    private SimulationEngine engine;
+
+    @Setup(Level.Trial)
+    public void createMap() {
+        int size = (int) Math.sqrt((double) citizens * CELLS_PER_CITIZEN) | 1;
+        layout = RandomMapGenerator.generate(size, size, citizens, BenchmarkMaps.SAFE_ZONES * 4,
+                BenchmarkMaps.SEED);
+    }
+
+    @Setup(Level.Iteration)
+    public void createEngine() {
+        engine = new SimulationEngine(BenchmarkMaps.config(DifficultyLevel.PROCEDURAL, layout));
+        engine.tick();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public TickReport firstTick() {
+        return new SimulationEngine(BenchmarkMaps.config(DifficultyLevel.PROCEDURAL, layout)).tick();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 2, time = 5)
+    @Measurement(iterations = 3, time = 5)
+    public TickReport tick() {
+        if (engine.getState().getOutcome() != SimulationOutcome.RUNNING) {
+            createEngine();
+        }
+        return engine.tick();
+    }
+}
@@ -0,0 +1,58 @@
+package com.andr3yqq.vulcanoeruptiongame.bench;
+
+import com.andr3yqq.vulcanoeruptiongame.model.GameMap;
+import com.andr3yqq.vulcanoeruptiongame.model.RandomMapGenerator;
+import com.andr3yqq.vulcanoeruptiongame.model.StreamingMazeGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link RandomMapGenerator#generate} with a fresh seed per call, and
+ * {@link RandomMapGenerator#generateAll} for a batch of {@value #BATCH} seeds, against the row-streaming
+ * {@link StreamingMazeGenerator}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapGenerationBenchmark {
+    private static final int BATCH = 64;
+
+    @Param({"29", "129", "257"})
+    private int mapSize;
+    @Param({"18", "200", "1000"})
+    private int citizens;
+
+    private long seed;
+
+    @Benchmark
+    public GameMap generate() {
+        return RandomMapGenerator.generate(mapSize, mapSize, citizens, BenchmarkMaps.SAFE_ZONES, seed++);
+    }
+
+    @Benchmark
+    public List<GameMap> generateBatch() {
+        List<GameMap> maps = RandomMapGenerator.generateAll(mapSize, mapSize, citizens, BenchmarkMaps.SAFE_ZONES,
+                seed, BATCH);
+        seed += BATCH;
+        return maps;
+    }
+
+    @Benchmark
+    public GameMap generateStreaming() {
+        return StreamingMazeGenerator.generate(mapSize, mapSize, citizens, BenchmarkMaps.SAFE_ZONES, seed++);
+    }
+}
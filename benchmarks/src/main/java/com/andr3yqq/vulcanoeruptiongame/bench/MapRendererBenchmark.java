@@ -0,0 +1,90 @@
+package com.andr3yqq.vulcanoeruptiongame.bench;
+
+import com.andr3yqq.vulcanoeruptiongame.model.DifficultyLevel;
+import com.andr3yqq.vulcanoeruptiongame.model.GameMap;
+import com.andr3yqq.vulcanoeruptiongame.model.SimulationOutcome;
+import com.andr3yqq.vulcanoeruptiongame.simulation.SimulationEngine;
+import com.andr3yqq.vulcanoeruptiongame.simulation.SimulationSnapshot;
+import com.andr3yqq.vulcanoeruptiongame.simulation.TickReport;
+import com.andr3yqq.vulcanoeruptiongame.ui.MapRenderer;
+import javafx.application.Platform;
+import javafx.scene.canvas.Canvas;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link MapRenderer} into an off-screen canvas: a full repaint, and an incremental frame after one
+ * tick, including the snapshot capture the simulation thread would do. Needs a JavaFX toolkit, i.e.
+ * a display (or Monocle headless) on the benchmark machine.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapRendererBenchmark {
+
+    @Param({"PROCEDURAL"})
+    private DifficultyLevel difficulty;
+    @Param({"29", "129", "257"})
+    private int mapSize;
+    @Param({"18", "200", "1000"})
+    private int citizens;
+
+    private GameMap layout;
+    private MapRenderer renderer;
+    private SimulationEngine engine;
+
+    @Setup(Level.Trial)
+    public void createRenderer() {
+        try {
+            Platform.startup(() -> {
+            });
+        } catch (IllegalStateException alreadyStarted) {
+            // toolkit survives between trials of the same fork
+        }
+        layout = BenchmarkMaps.create(difficulty, mapSize, citizens);
+        newGame();
+    }
+
+    @Benchmark
+    public void fullRedraw() {
+        renderer.invalidateAll();
+        renderer.draw();
+    }
+
+    @Benchmark
+    public void tickFrame() {
+        if (engine.getState().getOutcome() != SimulationOutcome.RUNNING) {
+            newGame();
+        }
+        TickReport report = engine.tick();
+        renderer.apply(SimulationSnapshot.capture(engine.getState(), report, List.of()));
+        renderer.draw();
+    }
+
+    private void newGame() {
+        engine = new SimulationEngine(BenchmarkMaps.config(difficulty, layout));
+        renderer = new MapRenderer(new Canvas(720, 520), layout);
+        renderer.apply(SimulationSnapshot.capture(engine.getState(), null, List.of(layout.getVolcanoSource())));
+        for (int i = 0; i < 5; i++) {
+            // some lava and movement on screen
+            renderer.apply(SimulationSnapshot.capture(engine.getState(), engine.tick(), List.of()));
+        }
+        renderer.draw();
+    }
+}
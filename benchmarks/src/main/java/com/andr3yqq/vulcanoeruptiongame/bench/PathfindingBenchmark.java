@@ -0,0 +1,119 @@
+package com.andr3yqq.vulcanoeruptiongame.bench;
+
+import com.andr3yqq.vulcanoeruptiongame.model.DifficultyLevel;
+import com.andr3yqq.vulcanoeruptiongame.model.GameMap;
+import com.andr3yqq.vulcanoeruptiongame.model.MapOverlay;
+import com.andr3yqq.vulcanoeruptiongame.model.Position;
+import com.andr3yqq.vulcanoeruptiongame.pathfinding.PathStrategy;
+import com.andr3yqq.vulcanoeruptiongame.pathfinding.SafeZonePathfinder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Paths from every house to a safe zone: one BFS per citizen versus each {@link PathStrategy}, on
+ * maze-like procedural maps and on open ground. The {@code AfterChange} cases keep one pathfinder
+ * across invocations and change one cell before each, as lava and player actions do in a game.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PathfindingBenchmark {
+
+    @Param({"PROCEDURAL"})
+    private DifficultyLevel difficulty;
+    @Param({"29", "129", "257"})
+    private int mapSize;
+    @Param({"18", "200", "1000"})
+    private int citizens;
+    @Param({"false", "true"})
+    private boolean open;
+
+    private GameMap map;
+    private MapOverlay overlay;
+    private MapOverlay changingOverlay;
+    private final Map<PathStrategy, SafeZonePathfinder> warm = new EnumMap<>(PathStrategy.class);
+    private int toggled;
+
+    @Setup(Level.Trial)
+    public void createMap() {
+        map = open ? BenchmarkMaps.open(mapSize, citizens) : BenchmarkMaps.create(difficulty, mapSize, citizens);
+        overlay = new MapOverlay(map);
+        changingOverlay = new MapOverlay(map);
+        warm.clear();
+        toggled = map.indexOf(map.getHouses().get(0));
+    }
+
+    @Benchmark
+    public void bfsPerCitizen(Blackhole blackhole) {
+        for (Position house : map.getHouses()) {
+            blackhole.consume(overlay.shortestPathToSafeZone(house));
+        }
+    }
+
+    @Benchmark
+    public void sharedDistanceField(Blackhole blackhole) {
+        route(PathStrategy.FLOW_FIELD, blackhole);
+    }
+
+    @Benchmark
+    public void aStarPerCitizen(Blackhole blackhole) {
+        route(PathStrategy.A_STAR, blackhole);
+    }
+
+    @Benchmark
+    public void jumpPointPerCitizen(Blackhole blackhole) {
+        route(PathStrategy.JUMP_POINT, blackhole);
+    }
+
+    @Benchmark
+    public void hierarchicalPerCitizen(Blackhole blackhole) {
+        route(PathStrategy.HIERARCHICAL, blackhole);
+    }
+
+    @Benchmark
+    public void sharedDistanceFieldAfterChange(Blackhole blackhole) {
+        routeAfterChange(PathStrategy.FLOW_FIELD, blackhole);
+    }
+
+    @Benchmark
+    public void hierarchicalAfterChange(Blackhole blackhole) {
+        routeAfterChange(PathStrategy.HIERARCHICAL, blackhole);
+    }
+
+    private void routeAfterChange(PathStrategy strategy, Blackhole blackhole) {
+        SafeZonePathfinder pathfinder = warm.computeIfAbsent(strategy, ignored -> strategy.create(changingOverlay));
+        changingOverlay.setBarricaded(toggled, !changingOverlay.isBarricaded(toggled));
+        BitSet changed = new BitSet();
+        changed.set(toggled);
+        pathfinder.invalidate(changed);
+        for (Position house : map.getHouses()) {
+            blackhole.consume(pathfinder.directionsToSafeZone(map.indexOf(house)));
+        }
+    }
+
+    private void route(PathStrategy strategy, Blackhole blackhole) {
+        SafeZonePathfinder pathfinder = strategy.create(overlay);
+        for (Position house : map.getHouses()) {
+            blackhole.consume(pathfinder.directionsToSafeZone(map.indexOf(house)));
+        }
+    }
+}
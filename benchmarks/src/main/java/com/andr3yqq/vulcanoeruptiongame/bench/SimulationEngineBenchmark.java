@@ -0,0 +1,93 @@
+package com.andr3yqq.vulcanoeruptiongame.bench;
+
+import com.andr3yqq.vulcanoeruptiongame.model.DifficultyLevel;
+import com.andr3yqq.vulcanoeruptiongame.model.GameMap;
+import com.andr3yqq.vulcanoeruptiongame.model.SimulationOutcome;
+import com.andr3yqq.vulcanoeruptiongame.model.SimulationState;
+import com.andr3yqq.vulcanoeruptiongame.simulation.SimulationEngine;
+import com.andr3yqq.vulcanoeruptiongame.simulation.TickReport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SimulationEngine#tick()} in isolation and whole games played to completion.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SimulationEngineBenchmark {
+    private static final int MAX_TICKS = 10_000;
+
+    @Param({"PROCEDURAL"})
+    private DifficultyLevel difficulty;
+    @Param({"29", "129", "257"})
+    private int mapSize;
+    @Param({"18", "200", "1000"})
+    private int citizens;
+
+    private GameMap layout;
+    private SimulationEngine engine;
+
+    @Setup(Level.Trial)
+    public void createMap() {
+        layout = BenchmarkMaps.create(difficulty, mapSize, citizens);
+    }
+
+    @Setup(Level.Iteration)
+    public void createEngine() {
+        engine = newEngine();
+    }
+
+    /**
+     * One tick of a running game; a finished game is replaced so idle ticks are not measured.
+     */
+    @Benchmark
+    public TickReport tick() {
+        if (engine.getState().getOutcome() != SimulationOutcome.RUNNING
+                || engine.getState().getTick() >= MAX_TICKS) {
+            engine = newEngine();
+        }
+        return engine.tick();
+    }
+
+    /**
+     * Same tick through {@link SimulationEngine#step()}, without building a {@link TickReport}.
+     */
+    @Benchmark
+    public SimulationOutcome step() {
+        if (engine.getState().getOutcome() != SimulationOutcome.RUNNING
+                || engine.getState().getTick() >= MAX_TICKS) {
+            engine = newEngine();
+        }
+        return engine.step();
+    }
+
+    @Benchmark
+    public SimulationState playToCompletion() {
+        SimulationEngine game = newEngine();
+        SimulationState state = game.getState();
+        while (state.getOutcome() == SimulationOutcome.RUNNING && state.getTick() < MAX_TICKS) {
+            game.step();
+        }
+        return state;
+    }
+
+    private SimulationEngine newEngine() {
+        return new SimulationEngine(BenchmarkMaps.config(difficulty, layout));
+    }
+}
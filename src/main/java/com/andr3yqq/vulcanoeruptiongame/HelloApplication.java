@@ -1,16 +1,24 @@
 package com.andr3yqq.vulcanoeruptiongame;
 
+import com.andr3yqq.vulcanoeruptiongame.metrics.MetricsSnapshot;
+import com.andr3yqq.vulcanoeruptiongame.metrics.TickCounter;
+import com.andr3yqq.vulcanoeruptiongame.metrics.TickPhase;
 import com.andr3yqq.vulcanoeruptiongame.model.DifficultyLevel;
+import com.andr3yqq.vulcanoeruptiongame.model.MapPrefetcher;
+import com.andr3yqq.vulcanoeruptiongame.model.MapPresets;
 import com.andr3yqq.vulcanoeruptiongame.model.Position;
 import com.andr3yqq.vulcanoeruptiongame.model.SimulationConfig;
 import com.andr3yqq.vulcanoeruptiongame.model.SimulationOutcome;
+import com.andr3yqq.vulcanoeruptiongame.simulation.ReplayRecorder;
 import com.andr3yqq.vulcanoeruptiongame.simulation.SimulationEngine;
-import com.andr3yqq.vulcanoeruptiongame.simulation.TickReport;
+import com.andr3yqq.vulcanoeruptiongame.simulation.SimulationRunner;
+import com.andr3yqq.vulcanoeruptiongame.simulation.SimulationSnapshot;
+import com.andr3yqq.vulcanoeruptiongame.simulation.SimulationSpeed;
 import com.andr3yqq.vulcanoeruptiongame.ui.MapRenderer;
+import javafx.animation.AnimationTimer;
 import javafx.animation.FadeTransition;
-import javafx.animation.KeyFrame;
-import javafx.animation.Timeline;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.collections.FXCollections;
@@ -34,22 +42,36 @@ import javafx.scene.paint.Color;
 import javafx.scene.shape.Rectangle;
 import javafx.stage.Stage;
 import javafx.util.Duration;
-import java.util.concurrent.ThreadLocalRandom;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
- * JavaFX front-end: draws the map, runs the simulation clock, and exposes player actions.
+ * JavaFX front-end: draws the map, drives the background {@link SimulationRunner}, and exposes
+ * player actions. Snapshots are requested from the runner and drained once per pulse, so a
+ * fast-forward run costs one capture and one repaint per frame no matter how many ticks it played.
  */
 public class HelloApplication extends Application {
 
     private static final double CANVAS_WIDTH = 720;
     private static final double CANVAS_HEIGHT = 520;
+    private static final Path REPLAY_DIR = Path.of(System.getProperty("user.home"), ".vulcano-replays");
+    private static final DateTimeFormatter REPLAY_NAME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final int PREFETCHED_MAPS = 3;
 
     private enum ActionMode { NONE, BARRICADE, OPEN_ROAD }
 
     private Canvas mapCanvas;
-    private SimulationEngine engine;
+    private SimulationRunner runner;
     private MapRenderer renderer;
-    private Timeline timeline;
+    private SimulationSnapshot snapshot;
+    private AtomicReference<SimulationSnapshot> pendingSnapshot = new AtomicReference<>();
+    private AnimationTimer frameTimer;
+    private boolean running;
+    private boolean replaySaved;
     private ActionMode actionMode = ActionMode.NONE;
 
     private Label tickLabel;
@@ -57,6 +79,7 @@ public class HelloApplication extends Application {
     private Label lostLabel;
     private Label barricadeLabel;
     private Label openRoadLabel;
+    private Label metricsLabel;
     private Label statusLabel;
     private Label actionHintLabel;
     private Button startButton;
@@ -66,10 +89,12 @@ public class HelloApplication extends Application {
     private ToggleButton barricadeButton;
     private ToggleButton openRoadButton;
     private ComboBox<DifficultyLevel> difficultyCombo;
+    private ComboBox<SimulationSpeed> speedCombo;
     private ObservableList<String> eventLogItems;
     private ListView<String> eventLogView;
     private DifficultyLevel currentDifficulty = DifficultyLevel.NORMAL;
     private long lastProceduralSeed;
+    private final MapPrefetcher proceduralMaps = MapPresets.proceduralPrefetcher(PREFETCHED_MAPS);
     private StackPane mapContainer;
     private Rectangle flashOverlay;
     private FadeTransition flashAnimation;
@@ -109,6 +134,28 @@ public class HelloApplication extends Application {
         loadAudioClips();
         setupSimulation();
         hookupInteractions();
+        frameTimer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                drainSnapshots();
+            }
+        };
+        frameTimer.start();
+    }
+
+    @Override
+    public void stop() {
+        if (frameTimer != null) {
+            frameTimer.stop();
+        }
+        if (runner != null) {
+            try {
+                saveReplay().get(2, TimeUnit.SECONDS);
+            } catch (Exception ex) {
+                System.err.println("Nepavyko išsaugoti įrašo: " + ex.getMessage());
+            }
+            runner.shutdown();
+        }
     }
 
     private VBox buildSidebar() {
@@ -122,11 +169,22 @@ public class HelloApplication extends Application {
         suppressDifficultyListener = false;
         difficultyCombo.valueProperty().addListener((obs, oldVal, newVal) -> onDifficultyChanged(newVal));
 
+        Label speedLabel = new Label("Greitis");
+        speedCombo = new ComboBox<>(FXCollections.observableArrayList(SimulationSpeed.values()));
+        speedCombo.setValue(SimulationSpeed.NORMAL);
+        speedCombo.valueProperty().addListener((obs, oldVal, newVal) -> {
+            if (newVal != null && runner != null) {
+                runner.setSpeed(newVal);
+            }
+        });
+
         tickLabel = new Label();
         savedLabel = new Label();
         lostLabel = new Label();
         barricadeLabel = new Label();
         openRoadLabel = new Label();
+        metricsLabel = new Label();
+        metricsLabel.setWrapText(true);
         statusLabel = new Label();
         statusLabel.getStyleClass().add("status-label");
         actionHintLabel = new Label("Pasirinkite veiksmą ir spauskite ant langelio.");
@@ -155,12 +213,15 @@ public class HelloApplication extends Application {
                 new Separator(),
                 difficultyLabel,
                 difficultyCombo,
+                speedLabel,
+                speedCombo,
                 new Separator(),
                 tickLabel,
                 savedLabel,
                 lostLabel,
                 barricadeLabel,
                 openRoadLabel,
+                metricsLabel,
                 statusLabel,
                 new Separator(),
                 new Label("Veiksmai"),
@@ -186,16 +247,26 @@ public class HelloApplication extends Application {
                 ? difficultyCombo.getValue()
                 : DifficultyLevel.NORMAL;
         currentDifficulty = selected;
-        SimulationConfig config;
-        if (selected.isProcedural()) {
-            lastProceduralSeed = ThreadLocalRandom.current().nextLong();
-            config = selected.createConfig(lastProceduralSeed);
-        } else {
-            lastProceduralSeed = 0L;
-            config = SimulationConfig.forDifficulty(selected);
+        lastProceduralSeed = selected.isProcedural() ? proceduralMaps.nextSeed() : 0L;
+        SimulationConfig config = selected.createConfig(lastProceduralSeed);
+        if (runner != null) {
+            saveReplay();
+            runner.shutdown();
         }
-        engine = new SimulationEngine(config);
-        renderer = new MapRenderer(mapCanvas, engine);
+        // A fresh slot, so a late snapshot from the previous runner cannot reach this game.
+        AtomicReference<SimulationSnapshot> slot = new AtomicReference<>();
+        pendingSnapshot = slot;
+        running = false;
+        replaySaved = false;
+        renderer = new MapRenderer(mapCanvas, config.getMap());
+        SimulationEngine engine = new SimulationEngine(config);
+        engine.setRecorder(new ReplayRecorder(selected, lastProceduralSeed, config.getPathStrategy(),
+                ReplayRecorder.DEFAULT_KEYFRAME_INTERVAL));
+        runner = new SimulationRunner(engine, speedCombo.getValue(), published ->
+                slot.accumulateAndGet(published, (pending, latest) -> pending == null ? latest : latest.mergedAfter(pending)));
+        snapshot = runner.initialSnapshot();
+        runner.start();
+        renderer.apply(snapshot);
         renderer.draw();
         if (eventLogItems != null) {
             eventLogItems.clear();
@@ -207,17 +278,11 @@ public class HelloApplication extends Application {
         if (selected.isProcedural()) {
             baseMsg += " | seed=" + Long.toHexString(lastProceduralSeed);
         }
-        logEvent(baseMsg + ". Lava startuoja taške "
-                + engine.getState().getConfig().getMap().getVolcanoSource());
+        logEvent(baseMsg + ". Lava startuoja taške " + config.getMap().getVolcanoSource());
         actionMode = ActionMode.NONE;
         if (actionToggleGroup != null) {
             actionToggleGroup.selectToggle(null);
         }
-        if (timeline != null) {
-            timeline.stop();
-        }
-        timeline = new Timeline(new KeyFrame(Duration.millis(600), e -> advanceSimulation()));
-        timeline.setCycleCount(Timeline.INDEFINITE);
         startButton.setDisable(false);
         pauseButton.setDisable(true);
         pauseButton.setText("Pauzė");
@@ -228,7 +293,7 @@ public class HelloApplication extends Application {
         if (suppressDifficultyListener || newValue == null || newValue == currentDifficulty) {
             return;
         }
-        if (timeline != null && timeline.getStatus() == Timeline.Status.RUNNING) {
+        if (running) {
             statusLabel.setText("Sustabdykite simuliaciją prieš keičiant sunkumą.");
             suppressDifficultyListener = true;
             difficultyCombo.setValue(currentDifficulty);
@@ -240,7 +305,8 @@ public class HelloApplication extends Application {
 
     private void hookupInteractions() {
         startButton.setOnAction(e -> {
-            timeline.play();
+            runner.play();
+            running = true;
             startButton.setDisable(true);
             pauseButton.setDisable(false);
             statusLabel.setText("Simuliacija vyksta...");
@@ -248,13 +314,15 @@ public class HelloApplication extends Application {
             logEvent("Simuliacija paleista.");
         });
         pauseButton.setOnAction(e -> {
-            if (timeline.getStatus() == Timeline.Status.RUNNING) {
-                timeline.pause();
+            if (running) {
+                runner.pause();
+                running = false;
                 pauseButton.setText("Tęsti");
                 statusLabel.setText("Pauzė");
                 logEvent("Simuliacija pristabdyta.");
             } else {
-                timeline.play();
+                runner.play();
+                running = true;
                 pauseButton.setText("Pauzė");
                 statusLabel.setText("Simuliacija vyksta...");
                 logEvent("Simuliacija tęsiama.");
@@ -287,80 +355,119 @@ public class HelloApplication extends Application {
                 return;
             }
             Position target = renderer.pickCell(event.getX(), event.getY());
-            boolean success = switch (actionMode) {
-                case BARRICADE -> engine.buildBarricade(target);
-                case OPEN_ROAD -> engine.openRoad(target);
-                case NONE -> false;
-            };
-            if (success) {
-                statusLabel.setText("Veiksmas pritaikytas langeliui " + target);
-                renderer.draw();
-                updateSidebarTexts();
-                String verb = actionMode == ActionMode.BARRICADE ? "Barikada pastatyta" : "Kelias atvertas";
-                logEvent(verb + " ties " + target);
-            } else {
-                statusLabel.setText("Nepavyko: netinkamas langelis arba pasibaigė veiksmai.");
-                logEvent("Veiksmas nepavyko ties " + target);
-            }
+            ActionMode mode = actionMode;
+            SimulationRunner owner = runner;
+            CompletableFuture<Boolean> result = mode == ActionMode.BARRICADE
+                    ? runner.buildBarricade(target)
+                    : runner.openRoad(target);
+            result.thenAccept(success -> Platform.runLater(() -> {
+                if (owner != runner) {
+                    return;
+                }
+                if (success) {
+                    statusLabel.setText("Veiksmas pritaikytas langeliui " + target);
+                    String verb = mode == ActionMode.BARRICADE ? "Barikada pastatyta" : "Kelias atvertas";
+                    logEvent(verb + " ties " + target);
+                } else {
+                    statusLabel.setText("Nepavyko: netinkamas langelis arba pasibaigė veiksmai.");
+                    logEvent("Veiksmas nepavyko ties " + target);
+                }
+            }));
         });
     }
 
-    private void advanceSimulation() {
-        TickReport report = engine.tick();
+    /**
+     * Applies what the runner published since the last pulse, repaints once and asks for the next
+     * frame. Snapshots that arrive before the pulse are merged in the slot, so flashes and sounds
+     * fire at most once per frame even when several ticks arrived together.
+     */
+    private void drainSnapshots() {
+        runner.requestFrame();
+        SimulationSnapshot next = pendingSnapshot.getAndSet(null);
+        if (next == null) {
+            return;
+        }
+        snapshot = next;
+        renderer.apply(next);
+        boolean lavaSpread = next.getNewLavaCount() > 0;
+        if (lavaSpread) {
+            logEvent("Lava užėmė " + next.getNewLavaCount() + " lang.");
+        }
+        for (int id : next.getSavedCitizens()) {
+            logEvent("Pilietis #" + id + " pasiekė saugią zoną.");
+        }
+        boolean anySaved = next.getSavedCitizens().length > 0;
+        for (int id : next.getLostCitizens()) {
+            logEvent("Pilietis #" + id + " žuvo.");
+        }
+        boolean anyLost = next.getLostCitizens().length > 0;
         renderer.draw();
         updateSidebarTexts();
-        boolean lavaSpread = !report.getNewLavaTiles().isEmpty();
         if (lavaSpread) {
-            logEvent("Lava užėmė " + report.getNewLavaTiles().size() + " lang.");
             flashOverlay(Color.ORANGERED);
             playClip(lavaClip);
         }
-        boolean anySaved = !report.getSavedCitizens().isEmpty();
-        report.getSavedCitizens().forEach(id -> logEvent("Pilietis #" + id + " pasiekė saugią zoną."));
         if (anySaved) {
             flashOverlay(Color.LIGHTGREEN);
             playClip(saveClip);
         }
-        boolean anyLost = !report.getLostCitizens().isEmpty();
-        report.getLostCitizens().forEach(id -> logEvent("Pilietis #" + id + " žuvo."));
         if (anyLost) {
             flashOverlay(Color.CRIMSON);
             playClip(deathClip);
         }
-        if (report.getOutcome() != SimulationOutcome.RUNNING) {
-            timeline.stop();
+        if (running && snapshot.getOutcome() != SimulationOutcome.RUNNING) {
+            running = false;
             startButton.setDisable(true);
             pauseButton.setDisable(true);
             pauseButton.setText("Pauzė");
-            statusLabel.setText(switch (report.getOutcome()) {
-                case VICTORY -> "Pergalė! Išgelbėti gyventojai: " + engine.getState().getSavedCount();
+            statusLabel.setText(switch (snapshot.getOutcome()) {
+                case VICTORY -> "Pergalė! Išgelbėti gyventojai: " + snapshot.getSavedCount();
                 case FAILURE -> "Pralaimėjimas. Lava buvo greitesnė.";
                 case RUNNING -> "";
             });
             barricadeButton.setDisable(true);
             openRoadButton.setDisable(true);
-            logEvent(report.getOutcome() == SimulationOutcome.VICTORY
-                    ? "Pergalė! " + engine.getState().getSavedCount() + " gyventojai išgelbėti."
+            logEvent(snapshot.getOutcome() == SimulationOutcome.VICTORY
+                    ? "Pergalė! " + snapshot.getSavedCount() + " gyventojai išgelbėti."
                     : "Pralaimėjimas. Visi gyventojai žuvo arba lava pasiekė saugias zonas.");
             setDifficultyControlEnabled(true);
+            saveReplay().whenComplete((file, error) -> Platform.runLater(() -> logEvent(error == null
+                    ? "Žaidimo įrašas išsaugotas: " + file
+                    : "Nepavyko išsaugoti įrašo: " + error.getMessage())));
+        }
+    }
+
+    /**
+     * Writes the current game's replay log once, if it got past the first tick. Must be called
+     * before the runner is shut down, because the write is queued on the simulation thread.
+     */
+    private CompletableFuture<Path> saveReplay() {
+        if (replaySaved || snapshot == null || snapshot.getTick() == 0) {
+            return CompletableFuture.completedFuture(null);
         }
+        replaySaved = true;
+        return runner.saveReplay(REPLAY_DIR.resolve("game-" + LocalDateTime.now().format(REPLAY_NAME) + ".vrlg"));
     }
 
     private void updateSidebarTexts() {
-        tickLabel.setText("Žingsnis: " + engine.getState().getTick());
-        savedLabel.setText("Išgelbėti: " + engine.getState().getSavedCount());
-        lostLabel.setText("Žuvo: " + engine.getState().getLostCount());
-        barricadeLabel.setText("Barikados: " + engine.getState().getBarricadeActionsLeft());
-        openRoadLabel.setText("Nauji keliai: " + engine.getState().getOpenRoadActionsLeft());
+        tickLabel.setText("Žingsnis: " + snapshot.getTick());
+        savedLabel.setText("Išgelbėti: " + snapshot.getSavedCount());
+        lostLabel.setText("Žuvo: " + snapshot.getLostCount());
+        barricadeLabel.setText("Barikados: " + snapshot.getBarricadeActionsLeft());
+        openRoadLabel.setText("Nauji keliai: " + snapshot.getOpenRoadActionsLeft());
+        MetricsSnapshot metrics = snapshot.getMetrics();
+        metricsLabel.setText(String.format("Ėjimas vid. %.2f ms (daug. %.2f ms), perplanavimai: %d, išplėstos viršūnės: %d",
+                metrics.averageMillis(TickPhase.TICK), metrics.maxNanos(TickPhase.TICK) / 1e6,
+                metrics.lastTick(TickCounter.REPLANS), metrics.lastTick(TickCounter.NODE_EXPANSIONS)));
         updateActionButtons();
     }
 
     private void updateActionButtons() {
-        if (engine == null || barricadeButton == null || openRoadButton == null) {
+        if (snapshot == null || barricadeButton == null || openRoadButton == null) {
             return;
         }
-        boolean hasBarricades = engine.getState().getBarricadeActionsLeft() > 0;
-        boolean hasRoads = engine.getState().getOpenRoadActionsLeft() > 0;
+        boolean hasBarricades = snapshot.getBarricadeActionsLeft() > 0;
+        boolean hasRoads = snapshot.getOpenRoadActionsLeft() > 0;
         barricadeButton.setDisable(!hasBarricades);
         openRoadButton.setDisable(!hasRoads);
         if ((!hasBarricades && actionMode == ActionMode.BARRICADE) ||
@@ -381,7 +488,7 @@ public class HelloApplication extends Application {
         if (eventLogItems == null) {
             return;
         }
-        int tick = engine != null ? engine.getState().getTick() : 0;
+        int tick = snapshot != null ? snapshot.getTick() : 0;
         eventLogItems.add(0, "T" + tick + ": " + message);
         while (eventLogItems.size() > 120) {
             eventLogItems.remove(eventLogItems.size() - 1);
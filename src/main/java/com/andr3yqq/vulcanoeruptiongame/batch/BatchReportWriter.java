@@ -0,0 +1,56 @@
+package com.andr3yqq.vulcanoeruptiongame.batch;
+
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Formats batch results. CSV holds one aggregated row per difficulty; JSON additionally lists
+ * every run.
+ */
+public final class BatchReportWriter {
+
+    private BatchReportWriter() {
+    }
+
+    public static void writeCsv(PrintWriter out, List<BatchSummary> summaries) {
+        out.println("difficulty,runs,victories,failures,unresolved,victory_rate,"
+                + "avg_saved,avg_lost,avg_ticks,min_ticks,max_ticks");
+        for (BatchSummary s : summaries) {
+            out.println(String.format(Locale.ROOT, "%s,%d,%d,%d,%d,%.4f,%.3f,%.3f,%.3f,%d,%d",
+                    s.getDifficulty().name(), s.getRuns(), s.getVictories(), s.getFailures(),
+                    s.getUnresolved(), s.getVictoryRate(), s.getAverageSaved(), s.getAverageLost(),
+                    s.getAverageTicks(), s.getMinTicks(), s.getMaxTicks()));
+        }
+        out.flush();
+    }
+
+    public static void writeJson(PrintWriter out, List<BatchSummary> summaries, List<RunResult> results) {
+        out.println("{");
+        out.println("  \"summaries\": [");
+        for (int i = 0; i < summaries.size(); i++) {
+            BatchSummary s = summaries.get(i);
+            out.print(String.format(Locale.ROOT,
+                    "    {\"difficulty\": \"%s\", \"runs\": %d, \"victories\": %d, \"failures\": %d, "
+                            + "\"unresolved\": %d, \"victoryRate\": %.4f, \"avgSaved\": %.3f, "
+                            + "\"avgLost\": %.3f, \"avgTicks\": %.3f, \"minTicks\": %d, \"maxTicks\": %d}",
+                    s.getDifficulty().name(), s.getRuns(), s.getVictories(), s.getFailures(),
+                    s.getUnresolved(), s.getVictoryRate(), s.getAverageSaved(), s.getAverageLost(),
+                    s.getAverageTicks(), s.getMinTicks(), s.getMaxTicks()));
+            out.println(i + 1 < summaries.size() ? "," : "");
+        }
+        out.println("  ],");
+        out.println("  \"runs\": [");
+        for (int i = 0; i < results.size(); i++) {
+            RunResult r = results.get(i);
+            out.print(String.format(Locale.ROOT,
+                    "    {\"difficulty\": \"%s\", \"seed\": %d, \"outcome\": \"%s\", \"saved\": %d, "
+                            + "\"lost\": %d, \"ticks\": %d}",
+                    r.difficulty().name(), r.seed(), r.outcome().name(), r.saved(), r.lost(), r.ticks()));
+            out.println(i + 1 < results.size() ? "," : "");
+        }
+        out.println("  ]");
+        out.println("}");
+        out.flush();
+    }
+}
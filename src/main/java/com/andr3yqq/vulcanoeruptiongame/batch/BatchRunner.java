@@ -0,0 +1,159 @@
+package com.andr3yqq.vulcanoeruptiongame.batch;
+
+import com.andr3yqq.vulcanoeruptiongame.metrics.MetricsSnapshot;
+import com.andr3yqq.vulcanoeruptiongame.model.DifficultyLevel;
+import com.andr3yqq.vulcanoeruptiongame.model.MapOverlay;
+import com.andr3yqq.vulcanoeruptiongame.model.SimulationConfig;
+import com.andr3yqq.vulcanoeruptiongame.model.SimulationOutcome;
+import com.andr3yqq.vulcanoeruptiongame.model.SimulationState;
+import com.andr3yqq.vulcanoeruptiongame.pathfinding.PathStrategy;
+import com.andr3yqq.vulcanoeruptiongame.simulation.SimulationEngine;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Headless entry point, independent of the JavaFX front-end. Plays {@link SimulationEngine} to
+ * completion for a range of seeds of each {@link DifficultyLevel} on a fork/join pool and prints
+ * aggregated results. A run only writes to its own {@link MapOverlay}, so fixed difficulties share
+ * one layout across all their runs; procedural runs build one per seed.
+ *
+ * <p>Run with {@code mvn javafx:run@batch -Djavafx.args="--runs=500 --format=json"}. Options:
+ * {@code --runs=N} (per difficulty), {@code --seed=S} (first seed), {@code --difficulties=A,B},
+ * {@code --threads=T}, {@code --max-ticks=M}, {@code --pathfinder=flow_field|a_star|jump_point|hierarchical},
+ * {@code --format=csv|json}, {@code --out=file}, {@code --metrics} (tick phase timings and work
+ * counters summed over all runs, printed to stderr).
+ */
+public final class BatchRunner {
+
+    private static final int DEFAULT_RUNS = 100;
+    private static final int DEFAULT_MAX_TICKS = 10_000;
+
+    private BatchRunner() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        int runs = DEFAULT_RUNS;
+        long seed = 1L;
+        int maxTicks = DEFAULT_MAX_TICKS;
+        int threads = Runtime.getRuntime().availableProcessors();
+        List<DifficultyLevel> difficulties = Arrays.asList(DifficultyLevel.values());
+        PathStrategy pathStrategy = PathStrategy.FLOW_FIELD;
+        String format = "csv";
+        Path out = null;
+        boolean dumpMetrics = false;
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            String key = eq < 0 ? arg : arg.substring(0, eq);
+            String value = eq < 0 ? "" : arg.substring(eq + 1);
+            switch (key) {
+                case "--runs" -> runs = Integer.parseInt(value);
+                case "--seed" -> seed = Long.parseLong(value);
+                case "--max-ticks" -> maxTicks = Integer.parseInt(value);
+                case "--threads" -> threads = Integer.parseInt(value);
+                case "--difficulties" -> difficulties = Arrays.stream(value.split(","))
+                        .map(name -> DifficultyLevel.valueOf(name.trim().toUpperCase(Locale.ROOT)))
+                        .toList();
+                case "--pathfinder" -> pathStrategy = PathStrategy.valueOf(value.toUpperCase(Locale.ROOT));
+                case "--format" -> format = value.toLowerCase(Locale.ROOT);
+                case "--out" -> out = Path.of(value);
+                case "--metrics" -> dumpMetrics = true;
+                default -> throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        }
+        if (!format.equals("csv") && !format.equals("json")) {
+            throw new IllegalArgumentException("Unknown format: " + format);
+        }
+
+        long started = System.nanoTime();
+        List<RunResult> results = runAll(difficulties, runs, seed, maxTicks, threads, pathStrategy);
+        List<BatchSummary> summaries = difficulties.stream()
+                .map(level -> BatchSummary.of(level, results))
+                .toList();
+
+        PrintWriter writer = out == null
+                ? new PrintWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))
+                : new PrintWriter(Files.newBufferedWriter(out, StandardCharsets.UTF_8));
+        if (format.equals("json")) {
+            BatchReportWriter.writeJson(writer, summaries, results);
+        } else {
+            BatchReportWriter.writeCsv(writer, summaries);
+        }
+        if (out != null) {
+            writer.close();
+        }
+        System.err.printf(Locale.ROOT, "%d runs on %d threads in %.1f ms%n",
+                results.size(), threads, (System.nanoTime() - started) / 1e6);
+        if (dumpMetrics) {
+            results.stream()
+                    .map(RunResult::metrics)
+                    .reduce(MetricsSnapshot.EMPTY, MetricsSnapshot::merge)
+                    .writeTo(new PrintWriter(new OutputStreamWriter(System.err, StandardCharsets.UTF_8)));
+        }
+    }
+
+    /**
+     * Runs seeds {@code firstSeed .. firstSeed + runs - 1} for every difficulty. Results come back
+     * in difficulty, then seed order regardless of scheduling.
+     */
+    public static List<RunResult> runAll(List<DifficultyLevel> difficulties, int runs, long firstSeed,
+                                         int maxTicks, int threads, PathStrategy pathStrategy) {
+        List<Task> tasks = new ArrayList<>();
+        EnumMap<DifficultyLevel, SimulationConfig> sharedConfigs = new EnumMap<>(DifficultyLevel.class);
+        for (DifficultyLevel level : difficulties) {
+            if (!level.isProcedural()) {
+                sharedConfigs.put(level, level.createConfig(firstSeed).withPathStrategy(pathStrategy));
+            }
+            for (int i = 0; i < runs; i++) {
+                tasks.add(new Task(level, firstSeed + i));
+            }
+        }
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, threads));
+        try {
+            return pool.submit(() -> tasks.parallelStream()
+                    .map(task -> {
+                        SimulationConfig config = sharedConfigs.get(task.level());
+                        return config == null
+                                ? run(task.level(), task.seed(),
+                                        task.level().createConfig(task.seed()).withPathStrategy(pathStrategy), maxTicks)
+                                : run(task.level(), task.seed(), config, maxTicks);
+                    })
+                    .toList()).get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Batch interrupted", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Batch run failed", ex.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    public static RunResult runSingle(DifficultyLevel level, long seed, int maxTicks) {
+        return run(level, seed, level.createConfig(seed), maxTicks);
+    }
+
+    private static RunResult run(DifficultyLevel level, long seed, SimulationConfig config, int maxTicks) {
+        SimulationEngine engine = new SimulationEngine(config);
+        SimulationState state = engine.getState();
+        while (state.getOutcome() == SimulationOutcome.RUNNING && state.getTick() < maxTicks) {
+            engine.step();
+        }
+        return new RunResult(level, seed, state.getOutcome(), state.getSavedCount(), state.getLostCount(),
+                state.getTick(), engine.getMetrics().snapshot());
+    }
+
+    private record Task(DifficultyLevel level, long seed) {
+    }
+}
@@ -0,0 +1,71 @@
+package com.andr3yqq.vulcanoeruptiongame.batch;
+
+import com.andr3yqq.vulcanoeruptiongame.model.DifficultyLevel;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Aggregated outcome, saved/lost and tick statistics of all runs of one difficulty.
+ */
+@Getter
+public class BatchSummary {
+    private final DifficultyLevel difficulty;
+    private int runs;
+    private int victories;
+    private int failures;
+    private int unresolved;
+    private long totalSaved;
+    private long totalLost;
+    private long totalTicks;
+    private int minTicks = Integer.MAX_VALUE;
+    private int maxTicks;
+
+    private BatchSummary(DifficultyLevel difficulty) {
+        this.difficulty = difficulty;
+    }
+
+    public static BatchSummary of(DifficultyLevel difficulty, List<RunResult> results) {
+        BatchSummary summary = new BatchSummary(difficulty);
+        for (RunResult result : results) {
+            if (result.difficulty() == difficulty) {
+                summary.add(result);
+            }
+        }
+        return summary;
+    }
+
+    private void add(RunResult result) {
+        runs++;
+        switch (result.outcome()) {
+            case VICTORY -> victories++;
+            case FAILURE -> failures++;
+            case RUNNING -> unresolved++;
+        }
+        totalSaved += result.saved();
+        totalLost += result.lost();
+        totalTicks += result.ticks();
+        minTicks = Math.min(minTicks, result.ticks());
+        maxTicks = Math.max(maxTicks, result.ticks());
+    }
+
+    public double getVictoryRate() {
+        return runs == 0 ? 0 : (double) victories / runs;
+    }
+
+    public double getAverageSaved() {
+        return runs == 0 ? 0 : (double) totalSaved / runs;
+    }
+
+    public double getAverageLost() {
+        return runs == 0 ? 0 : (double) totalLost / runs;
+    }
+
+    public double getAverageTicks() {
+        return runs == 0 ? 0 : (double) totalTicks / runs;
+    }
+
+    public int getMinTicks() {
+        return runs == 0 ? 0 : minTicks;
+    }
+}
@@ -0,0 +1,12 @@
+package com.andr3yqq.vulcanoeruptiongame.batch;
+
+import com.andr3yqq.vulcanoeruptiongame.metrics.MetricsSnapshot;
+import com.andr3yqq.vulcanoeruptiongame.model.DifficultyLevel;
+import com.andr3yqq.vulcanoeruptiongame.model.SimulationOutcome;
+
+/**
+ * Result of one headless run. {@link SimulationOutcome#RUNNING} means the tick limit was hit.
+ */
+public record RunResult(DifficultyLevel difficulty, long seed, SimulationOutcome outcome,
+                        int saved, int lost, int ticks, MetricsSnapshot metrics) {
+}
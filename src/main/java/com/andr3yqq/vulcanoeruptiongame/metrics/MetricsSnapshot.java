@@ -0,0 +1,106 @@
+package com.andr3yqq.vulcanoeruptiongame.metrics;
+
+import java.io.PrintWriter;
+import java.util.Locale;
+
+/**
+ * Immutable copy of {@link SimulationMetrics}, safe to hand to the UI or to merge across headless
+ * runs.
+ */
+public final class MetricsSnapshot {
+    public static final MetricsSnapshot EMPTY = new MetricsSnapshot(
+            new long[TickPhase.values().length], new long[TickPhase.values().length],
+            new long[TickPhase.values().length], new long[TickCounter.values().length],
+            new long[TickCounter.values().length]);
+
+    private final long[] phaseCounts;
+    private final long[] phaseNanos;
+    private final long[] phaseMaxNanos;
+    private final long[] totals;
+    private final long[] lastTick;
+
+    MetricsSnapshot(long[] phaseCounts, long[] phaseNanos, long[] phaseMaxNanos, long[] totals, long[] lastTick) {
+        this.phaseCounts = phaseCounts;
+        this.phaseNanos = phaseNanos;
+        this.phaseMaxNanos = phaseMaxNanos;
+        this.totals = totals;
+        this.lastTick = lastTick;
+    }
+
+    public long getTicks() {
+        return phaseCounts[TickPhase.TICK.ordinal()];
+    }
+
+    /**
+     * How many times {@code phase} ran; {@link TickPhase#SPREAD_LAVA} only runs every few ticks.
+     */
+    public long count(TickPhase phase) {
+        return phaseCounts[phase.ordinal()];
+    }
+
+    public long totalNanos(TickPhase phase) {
+        return phaseNanos[phase.ordinal()];
+    }
+
+    public long maxNanos(TickPhase phase) {
+        return phaseMaxNanos[phase.ordinal()];
+    }
+
+    public double averageMillis(TickPhase phase) {
+        long count = count(phase);
+        return count == 0 ? 0 : phaseNanos[phase.ordinal()] / 1e6 / count;
+    }
+
+    public long total(TickCounter counter) {
+        return totals[counter.ordinal()];
+    }
+
+    /**
+     * Value of {@code counter} in the most recent tick; after {@link #merge} that of the last
+     * snapshot merged in.
+     */
+    public long lastTick(TickCounter counter) {
+        return lastTick[counter.ordinal()];
+    }
+
+    public double perTick(TickCounter counter) {
+        long ticks = getTicks();
+        return ticks == 0 ? 0 : (double) totals[counter.ordinal()] / ticks;
+    }
+
+    /**
+     * Sums of both snapshots, e.g. to aggregate a batch of runs; maxima are the larger of the two.
+     */
+    public MetricsSnapshot merge(MetricsSnapshot other) {
+        long[] counts = phaseCounts.clone();
+        long[] nanos = phaseNanos.clone();
+        long[] maxNanos = phaseMaxNanos.clone();
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.phaseCounts[i];
+            nanos[i] += other.phaseNanos[i];
+            maxNanos[i] = Math.max(maxNanos[i], other.phaseMaxNanos[i]);
+        }
+        long[] sums = totals.clone();
+        for (int i = 0; i < sums.length; i++) {
+            sums[i] += other.totals[i];
+        }
+        return new MetricsSnapshot(counts, nanos, maxNanos, sums, other.lastTick.clone());
+    }
+
+    /**
+     * Plain-text dump, one {@code key value...} line per phase and per counter.
+     */
+    public void writeTo(PrintWriter out) {
+        out.println(String.format(Locale.ROOT, "ticks %d", getTicks()));
+        for (TickPhase phase : TickPhase.values()) {
+            out.println(String.format(Locale.ROOT, "phase %s count=%d total_ms=%.3f avg_ms=%.4f max_ms=%.3f",
+                    phase.getKey(), count(phase), totalNanos(phase) / 1e6, averageMillis(phase),
+                    maxNanos(phase) / 1e6));
+        }
+        for (TickCounter counter : TickCounter.values()) {
+            out.println(String.format(Locale.ROOT, "counter %s total=%d per_tick=%.2f",
+                    counter.getKey(), total(counter), perTick(counter)));
+        }
+        out.flush();
+    }
+}
@@ -0,0 +1,139 @@
+package com.andr3yqq.vulcanoeruptiongame.metrics;
+
+import jdk.jfr.EventType;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tick phase timings and work counters of one engine, also emitted as flight recorder events
+ * ({@link TickEvent}, {@link TickPhaseEvent}) so a recording lines them up with GC and JIT
+ * activity. The events are only created while a recording has them enabled, so an unrecorded
+ * tick allocates nothing here. Driven by the engine's thread; only {@link #countReplan()} may be
+ * called from helper threads. Readers on other threads take a {@link #snapshot()} on the engine's
+ * thread.
+ */
+public final class SimulationMetrics {
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final TickPhase[] PHASES = TickPhase.values();
+    private static final TickCounter[] COUNTERS = TickCounter.values();
+    private static final EventType TICK_EVENTS = EventType.getEventType(TickEvent.class);
+    private static final EventType PHASE_EVENTS = EventType.getEventType(TickPhaseEvent.class);
+
+    private final long[] phaseCounts = new long[PHASES.length];
+    private final long[] phaseNanos = new long[PHASES.length];
+    private final long[] phaseMaxNanos = new long[PHASES.length];
+    private final long[] totals = new long[COUNTERS.length];
+    private final long[] lastTick = new long[COUNTERS.length];
+    private final LongAdder replans = new LongAdder();
+    private long lavaCellsAdded;
+
+    private int tick;
+    private long tickStarted;
+    private long allocatedAtStart;
+    private long expansionsAtStart;
+    private long replansAtStart;
+    private TickEvent tickEvent;
+    private TickPhase phase;
+    private long phaseStarted;
+    private TickPhaseEvent phaseEvent;
+
+    /**
+     * @param expansions the pathfinder's expansion count so far
+     */
+    public void beginTick(int tick, long expansions) {
+        this.tick = tick;
+        allocatedAtStart = allocatedBytes();
+        expansionsAtStart = expansions;
+        replansAtStart = replans.sum();
+        lavaCellsAdded = 0;
+        if (TICK_EVENTS.isEnabled()) {
+            tickEvent = new TickEvent();
+            tickEvent.begin();
+        }
+        tickStarted = System.nanoTime();
+    }
+
+    public void beginPhase(TickPhase phase) {
+        this.phase = phase;
+        if (PHASE_EVENTS.isEnabled()) {
+            phaseEvent = new TickPhaseEvent();
+            phaseEvent.begin();
+        }
+        phaseStarted = System.nanoTime();
+    }
+
+    public void endPhase() {
+        record(phase, System.nanoTime() - phaseStarted);
+        if (phaseEvent == null) {
+            return;
+        }
+        phaseEvent.end();
+        if (phaseEvent.shouldCommit()) {
+            phaseEvent.tick = tick;
+            phaseEvent.phase = phase.getKey();
+            phaseEvent.commit();
+        }
+        phaseEvent = null;
+    }
+
+    public void countReplan() {
+        replans.increment();
+    }
+
+    public void countLavaCells(int cells) {
+        lavaCellsAdded += cells;
+    }
+
+    /**
+     * @param expansions the pathfinder's expansion count so far
+     */
+    public void endTick(long expansions) {
+        record(TickPhase.TICK, System.nanoTime() - tickStarted);
+        long allocated = allocatedBytes();
+        lastTick[TickCounter.NODE_EXPANSIONS.ordinal()] = expansions - expansionsAtStart;
+        lastTick[TickCounter.REPLANS.ordinal()] = replans.sum() - replansAtStart;
+        lastTick[TickCounter.LAVA_CELLS_ADDED.ordinal()] = lavaCellsAdded;
+        lastTick[TickCounter.ALLOCATED_BYTES.ordinal()] =
+                allocated < 0 || allocatedAtStart < 0 ? 0 : allocated - allocatedAtStart;
+        for (int i = 0; i < totals.length; i++) {
+            totals[i] += lastTick[i];
+        }
+        if (tickEvent == null) {
+            return;
+        }
+        tickEvent.end();
+        if (tickEvent.shouldCommit()) {
+            tickEvent.tick = tick;
+            tickEvent.nodeExpansions = lastTick[TickCounter.NODE_EXPANSIONS.ordinal()];
+            tickEvent.replans = lastTick[TickCounter.REPLANS.ordinal()];
+            tickEvent.lavaCellsAdded = lavaCellsAdded;
+            tickEvent.allocatedBytes = lastTick[TickCounter.ALLOCATED_BYTES.ordinal()];
+            tickEvent.commit();
+        }
+        tickEvent = null;
+    }
+
+    public MetricsSnapshot snapshot() {
+        return new MetricsSnapshot(phaseCounts.clone(), phaseNanos.clone(), phaseMaxNanos.clone(),
+                totals.clone(), lastTick.clone());
+    }
+
+    private void record(TickPhase phase, long nanos) {
+        int i = phase.ordinal();
+        phaseCounts[i]++;
+        phaseNanos[i] += nanos;
+        phaseMaxNanos[i] = Math.max(phaseMaxNanos[i], nanos);
+    }
+
+    /**
+     * Bytes allocated by the current thread so far, or -1 where the JDK cannot tell (e.g. on
+     * virtual threads).
+     */
+    private static long allocatedBytes() {
+        return THREADS instanceof com.sun.management.ThreadMXBean threads
+                ? threads.getCurrentThreadAllocatedBytes()
+                : -1;
+    }
+}
@@ -0,0 +1,34 @@
+package com.andr3yqq.vulcanoeruptiongame.metrics;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Work counted per tick.
+ */
+@Getter
+@AllArgsConstructor
+public enum TickCounter {
+    /**
+     * Cells taken off the open list or queue by the pathfinder, including distance field rebuilds.
+     */
+    NODE_EXPANSIONS("nodeExpansions", "Išplėstos viršūnės"),
+    /**
+     * Path searches started for citizens without a valid path.
+     */
+    REPLANS("replans", "Maršrutų perplanavimai"),
+    LAVA_CELLS_ADDED("lavaCellsAdded", "Nauji lavos langeliai"),
+    /**
+     * Bytes allocated by the thread running the tick; parallel planning and lava scans on other
+     * threads are not included, and virtual threads are not measured by the JDK at all.
+     */
+    ALLOCATED_BYTES("allocatedBytes", "Išskirta atminties (B)");
+
+    private final String key;
+    private final String displayName;
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
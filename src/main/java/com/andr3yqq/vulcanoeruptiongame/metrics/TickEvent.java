@@ -0,0 +1,34 @@
+package com.andr3yqq.vulcanoeruptiongame.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event spanning one {@code SimulationEngine.step()}, with that tick's counters.
+ */
+@Name("com.andr3yqq.vulcanoeruptiongame.Tick")
+@Label("Simulation Tick")
+@Category({"Vulcano Eruption Game", "Simulation"})
+@Description("One simulation tick and the work it did")
+@StackTrace(false)
+class TickEvent extends jdk.jfr.Event {
+    @Label("Tick")
+    int tick;
+
+    @Label("Node Expansions")
+    long nodeExpansions;
+
+    @Label("Replans")
+    long replans;
+
+    @Label("Lava Cells Added")
+    long lavaCellsAdded;
+
+    @Label("Allocated")
+    @DataAmount
+    long allocatedBytes;
+}
@@ -0,0 +1,25 @@
+package com.andr3yqq.vulcanoeruptiongame.metrics;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Timed parts of {@code SimulationEngine.step()}. {@link #TICK} covers the whole tick; the others
+ * are its steps, named after the engine methods in the dumps and flight recordings.
+ */
+@Getter
+@AllArgsConstructor
+public enum TickPhase {
+    TICK("tick", "Ėjimas"),
+    MOVE_CITIZENS("moveCitizens", "Gyventojų judėjimas"),
+    SPREAD_LAVA("spreadLava", "Lavos plitimas"),
+    EVALUATE_OUTCOME("evaluateOutcome", "Baigties tikrinimas");
+
+    private final String key;
+    private final String displayName;
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
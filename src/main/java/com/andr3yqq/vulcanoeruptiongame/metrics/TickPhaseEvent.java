@@ -0,0 +1,23 @@
+package com.andr3yqq.vulcanoeruptiongame.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event spanning one step of a tick, such as {@code moveCitizens}.
+ */
+@Name("com.andr3yqq.vulcanoeruptiongame.TickPhase")
+@Label("Simulation Tick Phase")
+@Category({"Vulcano Eruption Game", "Simulation"})
+@Description("One step of a simulation tick")
+@StackTrace(false)
+class TickPhaseEvent extends jdk.jfr.Event {
+    @Label("Tick")
+    int tick;
+
+    @Label("Phase")
+    String phase;
+}
@@ -0,0 +1,31 @@
+package com.andr3yqq.vulcanoeruptiongame.model;
+
+/**
+ * Single flat {@code byte[]}; the default for maps that comfortably fit in memory.
+ */
+public class ArrayCellStore implements CellStore {
+    private final byte[] cells;
+
+    public ArrayCellStore(int size) {
+        this(new byte[size]);
+    }
+
+    ArrayCellStore(byte[] cells) {
+        this.cells = cells;
+    }
+
+    @Override
+    public byte get(int index) {
+        return cells[index];
+    }
+
+    @Override
+    public void set(int index, byte value) {
+        cells[index] = value;
+    }
+
+    @Override
+    public CellStore copy() {
+        return new ArrayCellStore(cells.clone());
+    }
+}
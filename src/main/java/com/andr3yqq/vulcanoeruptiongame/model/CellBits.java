@@ -0,0 +1,133 @@
+package com.andr3yqq.vulcanoeruptiongame.model;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.BitSet;
+
+/**
+ * One flag per cell index, stored in pages of {@value #PAGE_CELLS} bits. Pages are only
+ * allocated on the first write, so a flag that touches a small part of a giant map costs memory
+ * for that part only. {@link #fork()} shares every page; whichever side writes to a shared page
+ * first copies it.
+ */
+final class CellBits {
+    static final int PAGE_CELLS = 1 << 12;
+    private static final int PAGE_SHIFT = 12;
+    private static final int WORDS_PER_PAGE = PAGE_CELLS >> 6;
+
+    private final long[][] pages;
+    private final BitSet ownedPages;
+
+    CellBits(int size) {
+        this.pages = new long[(size + PAGE_CELLS - 1) >> PAGE_SHIFT][];
+        this.ownedPages = new BitSet(pages.length);
+    }
+
+    private CellBits(long[][] pages) {
+        this.pages = pages;
+        this.ownedPages = new BitSet(pages.length);
+    }
+
+    /**
+     * Copies the page table only. Both this instance and the fork give up ownership of their
+     * pages, so must run on the thread that owns this instance.
+     */
+    CellBits fork() {
+        ownedPages.clear();
+        return new CellBits(pages.clone());
+    }
+
+    boolean get(int cell) {
+        long[] page = pages[cell >> PAGE_SHIFT];
+        return page != null && (page[(cell & (PAGE_CELLS - 1)) >> 6] & (1L << cell)) != 0;
+    }
+
+    void set(int cell, boolean value) {
+        if (get(cell) == value) {
+            return; // also keeps shared pages shared
+        }
+        int index = cell >> PAGE_SHIFT;
+        long[] page = pages[index];
+        if (page == null) {
+            page = new long[WORDS_PER_PAGE];
+            pages[index] = page;
+            ownedPages.set(index);
+        } else if (!ownedPages.get(index)) {
+            page = page.clone();
+            pages[index] = page;
+            ownedPages.set(index);
+        }
+        page[(cell & (PAGE_CELLS - 1)) >> 6] ^= 1L << cell;
+    }
+
+    /**
+     * Cells {@code 64 * word} to {@code 64 * word + 63}, lowest cell in the lowest bit; zero past
+     * the end.
+     */
+    long word(int word) {
+        int index = word >> (PAGE_SHIFT - 6);
+        if (index >= pages.length) {
+            return 0L;
+        }
+        long[] page = pages[index];
+        return page == null ? 0L : page[word & (WORDS_PER_PAGE - 1)];
+    }
+
+    /**
+     * Same contract as {@link BitSet#nextSetBit(int)}; skips unallocated pages whole.
+     */
+    int nextSetBit(int from) {
+        for (int index = from >> PAGE_SHIFT; index < pages.length; index++) {
+            long[] page = pages[index];
+            if (page == null) {
+                continue;
+            }
+            int start = index == from >> PAGE_SHIFT ? from & (PAGE_CELLS - 1) : 0;
+            for (int word = start >> 6; word < WORDS_PER_PAGE; word++) {
+                long bits = word == start >> 6 ? page[word] & (-1L << start) : page[word];
+                if (bits != 0) {
+                    return (index << PAGE_SHIFT) + (word << 6) + Long.numberOfTrailingZeros(bits);
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Set cells in {@link VarInts#writeCells(DataOutput, BitSet)} layout.
+     */
+    void writeTo(DataOutput out) throws IOException {
+        int count = 0;
+        for (int cell = nextSetBit(0); cell >= 0; cell = nextSetBit(cell + 1)) {
+            count++;
+        }
+        VarInts.write(out, count);
+        int previous = 0;
+        for (int cell = nextSetBit(0); cell >= 0; cell = nextSetBit(cell + 1)) {
+            VarInts.write(out, cell - previous);
+            previous = cell;
+        }
+    }
+
+    static CellBits readFrom(int size, DataInput in) throws IOException {
+        CellBits bits = new CellBits(size);
+        int count = VarInts.read(in);
+        int cell = 0;
+        for (int i = 0; i < count; i++) {
+            cell += VarInts.read(in);
+            bits.set(cell, true);
+        }
+        return bits;
+    }
+
+    int allocatedPages() {
+        int count = 0;
+        for (long[] page : pages) {
+            if (page != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
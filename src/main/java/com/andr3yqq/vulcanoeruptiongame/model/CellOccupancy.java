@@ -0,0 +1,161 @@
+package com.andr3yqq.vulcanoeruptiongame.model;
+
+import java.util.Arrays;
+
+/**
+ * Cell-to-slot index of the citizens still evacuating. The citizens on one cell form a doubly
+ * linked list through {@link #next}/{@link #previous}; the head of each list is found through an
+ * open-addressing table keyed by cell, sized by the citizens rather than the map, so adding,
+ * moving and dropping a citizen are all O(1). Kept current by {@link CitizenStore}.
+ */
+final class CellOccupancy {
+    private static final int NONE = -1;
+
+    private int[] keys;
+    private int[] heads;
+    /**
+     * Table entries holding a cell, with or without citizens on it, and those with citizens.
+     */
+    private int used;
+    private int occupied;
+    private int[] next;
+    private int[] previous;
+
+    CellOccupancy(int capacity) {
+        this.next = new int[capacity];
+        this.previous = new int[capacity];
+        allocateTable(16);
+    }
+
+    private CellOccupancy(CellOccupancy source, int size) {
+        this.keys = source.keys.clone();
+        this.heads = source.heads.clone();
+        this.used = source.used;
+        this.occupied = source.occupied;
+        this.next = Arrays.copyOf(source.next, size);
+        this.previous = Arrays.copyOf(source.previous, size);
+    }
+
+    /**
+     * Independent copy covering the first {@code size} slots.
+     */
+    CellOccupancy fork(int size) {
+        return new CellOccupancy(this, size);
+    }
+
+    void add(int slot, int cell) {
+        if (slot >= next.length) {
+            int capacity = Math.max(16, Math.max(slot + 1, next.length * 2));
+            next = Arrays.copyOf(next, capacity);
+            previous = Arrays.copyOf(previous, capacity);
+        }
+        int entry = entryFor(cell);
+        int head = heads[entry];
+        if (head == NONE) {
+            occupied++;
+        } else {
+            previous[head] = slot;
+        }
+        next[slot] = head;
+        previous[slot] = NONE;
+        heads[entry] = slot;
+    }
+
+    void remove(int slot, int cell) {
+        int before = previous[slot];
+        int after = next[slot];
+        if (before != NONE) {
+            next[before] = after;
+        } else {
+            int entry = find(cell);
+            heads[entry] = after;
+            if (after == NONE) {
+                occupied--;
+            }
+        }
+        if (after != NONE) {
+            previous[after] = before;
+        }
+    }
+
+    void move(int slot, int from, int to) {
+        remove(slot, from);
+        add(slot, to);
+    }
+
+    /**
+     * First slot on {@code cell}, or -1; the others follow through {@link #next(int)}.
+     */
+    int first(int cell) {
+        int entry = find(cell);
+        return entry < 0 ? NONE : heads[entry];
+    }
+
+    int next(int slot) {
+        return next[slot];
+    }
+
+    private int find(int cell) {
+        int mask = keys.length - 1;
+        for (int entry = hash(cell) & mask; keys[entry] != NONE; entry = (entry + 1) & mask) {
+            if (keys[entry] == cell) {
+                return entry;
+            }
+        }
+        return NONE;
+    }
+
+    private int entryFor(int cell) {
+        int entry = find(cell);
+        if (entry >= 0) {
+            return entry;
+        }
+        if ((used + 1) * 2 > keys.length) {
+            rehash();
+        }
+        int mask = keys.length - 1;
+        entry = hash(cell) & mask;
+        while (keys[entry] != NONE) {
+            entry = (entry + 1) & mask;
+        }
+        keys[entry] = cell;
+        heads[entry] = NONE;
+        used++;
+        return entry;
+    }
+
+    /**
+     * Cells citizens have left stay in the table until this drops them, resizing to the cells
+     * still occupied.
+     */
+    private void rehash() {
+        int[] oldKeys = keys;
+        int[] oldHeads = heads;
+        allocateTable(Math.max(16, Integer.highestOneBit(Math.max(1, occupied) * 4 - 1) << 1));
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == NONE || oldHeads[i] == NONE) {
+                continue;
+            }
+            int entry = hash(oldKeys[i]) & mask;
+            while (keys[entry] != NONE) {
+                entry = (entry + 1) & mask;
+            }
+            keys[entry] = oldKeys[i];
+            heads[entry] = oldHeads[i];
+            used++;
+        }
+    }
+
+    private void allocateTable(int capacity) {
+        keys = new int[capacity];
+        heads = new int[capacity];
+        Arrays.fill(keys, NONE);
+        used = 0;
+    }
+
+    private static int hash(int cell) {
+        int h = cell * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
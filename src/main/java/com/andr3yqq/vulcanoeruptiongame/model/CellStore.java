@@ -0,0 +1,20 @@
+package com.andr3yqq.vulcanoeruptiongame.model;
+
+/**
+ * Backing bytes of a {@link PackedGrid}, one per cell, addressed by {@code y * width + x}.
+ * Concurrent reads are safe as long as nobody writes.
+ */
+public interface CellStore {
+
+    byte get(int index);
+
+    void set(int index, byte value);
+
+    CellStore copy();
+
+    /**
+     * Releases memory held by regions whose cells all became equal. No-op for flat storage.
+     */
+    default void compact() {
+    }
+}
@@ -0,0 +1,126 @@
+package com.andr3yqq.vulcanoeruptiongame.model;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Giant-map storage split into {@value #CHUNK_SIZE}x{@value #CHUNK_SIZE} chunks. A chunk whose
+ * cells are all equal (solid rock, untouched road, fully cooled lava) is paged out to a single
+ * fill byte and only materialised again when a write makes it differ.
+ */
+public class ChunkedCellStore implements CellStore {
+    public static final int CHUNK_SHIFT = 6;
+    public static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int LOCAL_MASK = CHUNK_SIZE - 1;
+
+    private final int width;
+    private final int height;
+    @Getter
+    private final int chunksX;
+    @Getter
+    private final int chunksY;
+    private final byte[][] chunks;
+    private final byte[] fill;
+    private final BitSet dirty;
+
+    public ChunkedCellStore(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.chunksX = (width + LOCAL_MASK) >> CHUNK_SHIFT;
+        this.chunksY = (height + LOCAL_MASK) >> CHUNK_SHIFT;
+        this.chunks = new byte[chunksX * chunksY][];
+        this.fill = new byte[chunks.length];
+        this.dirty = new BitSet(chunks.length);
+    }
+
+    private ChunkedCellStore(ChunkedCellStore source) {
+        this.width = source.width;
+        this.height = source.height;
+        this.chunksX = source.chunksX;
+        this.chunksY = source.chunksY;
+        this.chunks = new byte[source.chunks.length][];
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = source.chunks[i] == null ? null : source.chunks[i].clone();
+        }
+        this.fill = source.fill.clone();
+        this.dirty = (BitSet) source.dirty.clone();
+    }
+
+    @Override
+    public byte get(int index) {
+        int x = index % width;
+        int y = index / width;
+        int chunk = (y >> CHUNK_SHIFT) * chunksX + (x >> CHUNK_SHIFT);
+        byte[] cells = chunks[chunk];
+        return cells == null ? fill[chunk] : cells[local(x, y)];
+    }
+
+    @Override
+    public void set(int index, byte value) {
+        int x = index % width;
+        int y = index / width;
+        int chunk = (y >> CHUNK_SHIFT) * chunksX + (x >> CHUNK_SHIFT);
+        byte[] cells = chunks[chunk];
+        if (cells == null) {
+            if (fill[chunk] == value) {
+                return;
+            }
+            cells = new byte[CHUNK_SIZE * CHUNK_SIZE];
+            Arrays.fill(cells, fill[chunk]);
+            chunks[chunk] = cells;
+        }
+        cells[local(x, y)] = value;
+        dirty.set(chunk);
+    }
+
+    @Override
+    public CellStore copy() {
+        return new ChunkedCellStore(this);
+    }
+
+    /**
+     * Pages out chunks written since the last call whose cells are now uniform. Only cells inside
+     * the map count; edge chunks are padded past the border.
+     */
+    @Override
+    public void compact() {
+        for (int chunk = dirty.nextSetBit(0); chunk >= 0; chunk = dirty.nextSetBit(chunk + 1)) {
+            byte[] cells = chunks[chunk];
+            if (cells != null && isUniform(chunk, cells)) {
+                fill[chunk] = cells[0];
+                chunks[chunk] = null;
+            }
+        }
+        dirty.clear();
+    }
+
+    public int materializedChunks() {
+        int count = 0;
+        for (byte[] chunk : chunks) {
+            if (chunk != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private boolean isUniform(int chunk, byte[] cells) {
+        int usedWidth = Math.min(CHUNK_SIZE, width - (chunk % chunksX << CHUNK_SHIFT));
+        int usedHeight = Math.min(CHUNK_SIZE, height - (chunk / chunksX << CHUNK_SHIFT));
+        byte first = cells[0];
+        for (int y = 0; y < usedHeight; y++) {
+            for (int x = 0; x < usedWidth; x++) {
+                if (cells[(y << CHUNK_SHIFT) | x] != first) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static int local(int x, int y) {
+        return ((y & LOCAL_MASK) << CHUNK_SHIFT) | (x & LOCAL_MASK);
+    }
+}
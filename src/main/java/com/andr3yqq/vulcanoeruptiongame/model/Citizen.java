@@ -1,47 +1,66 @@
 package com.andr3yqq.vulcanoeruptiongame.model;
 
-import lombok.Getter;
-import lombok.Setter;
+import java.util.List;
 
-import java.util.ArrayDeque;
-import java.util.Deque;
-import java.util.Optional;
-
-@Getter
-@Setter
+/**
+ * View of one slot of a {@link CitizenStore}. Cheap to create and read-only; the engine moves and
+ * resolves citizens through the store itself.
+ */
 public class Citizen {
-    private final int id;
-    private final CitizenType type;
-    private final int priority;
-    private Position position;
-    private boolean alive = true;
-    private boolean safe = false;
-    private Deque<Position> plannedPath = new ArrayDeque<>();
+    private final CitizenStore store;
+    private final int slot;
+
+    Citizen(CitizenStore store, int slot) {
+        this.store = store;
+        this.slot = slot;
+    }
+
+    public int getSlot() {
+        return slot;
+    }
+
+    public int getId() {
+        return store.getId(slot);
+    }
 
-    public Citizen(int id, CitizenType type, int priority, Position start) {
-        this.id = id;
-        this.type = type;
-        this.priority = priority;
-        this.position = start;
+    public CitizenType getType() {
+        return store.getType(slot);
     }
 
-    public void kill() {
-        this.alive = false;
+    public int getPriority() {
+        return store.getPriority(slot);
     }
 
-    public void markSafe() {
-        this.safe = true;
+    public Position getPosition() {
+        return store.getPosition(slot);
     }
 
-    public void setPath(Deque<Position> path) {
-        this.plannedPath = path;
+    public boolean isAlive() {
+        return store.isAlive(slot);
     }
 
-    public Optional<Position> nextStep() {
-        return Optional.ofNullable(plannedPath.pollFirst());
+    public boolean isSafe() {
+        return store.isSafe(slot);
+    }
+
+    /**
+     * Steps still ahead of the citizen, excluding its current tile.
+     */
+    public List<Position> getPlannedPath() {
+        return store.remainingPath(slot);
     }
 
     public boolean hasPath() {
-        return plannedPath != null && !plannedPath.isEmpty();
+        return store.hasPath(slot);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof Citizen citizen && citizen.store == store && citizen.slot == slot;
+    }
+
+    @Override
+    public int hashCode() {
+        return System.identityHashCode(store) * 31 + slot;
     }
 }
@@ -0,0 +1,97 @@
+package com.andr3yqq.vulcanoeruptiongame.model;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * Active citizens in move order: descending {@link Citizen#getPriority()}, ascending id for equal
+ * priority. The order is one int array of store slots, sorted once; resolved slots are squeezed
+ * out while it is walked, so a tick streams through the people still evacuating and never sorts.
+ */
+public class CitizenScheduler {
+    private final CitizenStore store;
+    private int[] order;
+    private int length;
+    private int active;
+
+    CitizenScheduler(CitizenStore store) {
+        this.store = store;
+        long[] keys = new long[store.size()];
+        int count = 0;
+        for (int slot = 0; slot < store.size(); slot++) {
+            if (store.isActive(slot)) {
+                keys[count++] = (long) store.getId(slot) << 32 | slot;
+            }
+        }
+        Arrays.sort(keys, 0, count);
+        // Stable bucket pass by descending priority keeps ids ascending inside each priority.
+        int maxPriority = Integer.MIN_VALUE;
+        int minPriority = Integer.MAX_VALUE;
+        for (int i = 0; i < count; i++) {
+            maxPriority = Math.max(maxPriority, store.getPriority((int) keys[i]));
+            minPriority = Math.min(minPriority, store.getPriority((int) keys[i]));
+        }
+        this.order = new int[count];
+        for (int priority = maxPriority; priority >= minPriority; priority--) {
+            for (int i = 0; i < count; i++) {
+                int slot = (int) keys[i];
+                if (store.getPriority(slot) == priority) {
+                    order[length++] = slot;
+                }
+            }
+        }
+        this.active = count;
+    }
+
+    private CitizenScheduler(CitizenStore store, CitizenScheduler source) {
+        this.store = store;
+        this.order = Arrays.copyOf(source.order, source.length);
+        this.length = source.length;
+        this.active = source.active;
+    }
+
+    /**
+     * Same order over a fork of this scheduler's store.
+     */
+    CitizenScheduler fork(CitizenStore forkedStore) {
+        return new CitizenScheduler(forkedStore, this);
+    }
+
+    /**
+     * Called by {@link SimulationState} when a citizen is resolved. Only the count changes; the
+     * resolved slot is dropped from the order on the next walk.
+     */
+    void resolved() {
+        active--;
+    }
+
+    public int size() {
+        return active;
+    }
+
+    /**
+     * Visits every active slot in move order. The action may resolve the slot it is given; other
+     * resolved slots are skipped.
+     */
+    public void forEachActiveSlot(IntConsumer action) {
+        int kept = 0;
+        for (int i = 0; i < length; i++) {
+            int slot = order[i];
+            if (store.isActive(slot)) {
+                action.accept(slot);
+            }
+            if (store.isActive(slot)) {
+                order[kept++] = slot;
+            }
+        }
+        length = kept;
+    }
+
+    /**
+     * {@link #forEachActiveSlot} with a {@link Citizen} view per slot, for code off the hot path.
+     */
+    public void forEachActive(Consumer<Citizen> action) {
+        forEachActiveSlot(slot -> action.accept(store.view(slot)));
+    }
+}
@@ -0,0 +1,405 @@
+package com.andr3yqq.vulcanoeruptiongame.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Every citizen of one run, one slot each, in parallel primitive arrays: id, type, priority, cell,
+ * status and the planned path with its cursor. Paths are two-bit step directions that are never
+ * modified once set, so forks share them. There are no per-citizen objects for the collector to
+ * trace, which keeps runs with a million citizens cheap; {@link Citizen} is a view of one slot.
+ * A {@link CellOccupancy} and a {@link PathIndex} find the citizens a changed cell affects.
+ */
+public final class CitizenStore {
+    private static final CitizenType[] TYPES = CitizenType.values();
+    private static final byte ACTIVE = 0;
+    private static final byte SAFE = 1;
+    private static final byte DEAD = 2;
+    private static final byte[] NO_PATH = new byte[0];
+
+    private final GameMap map;
+    private final int[] stepOffsets;
+    /**
+     * Cell offset of four packed steps, indexed by the unsigned path byte.
+     */
+    private final int[] byteOffsets;
+    private int size;
+    private int[] ids;
+    private byte[] types;
+    private byte[] priorities;
+    private int[] cells;
+    private byte[] status;
+    private byte[][] paths;
+    private int[] pathLengths;
+    private int[] pathCursors;
+    /**
+     * Bumped whenever a slot's path is set, so {@link PathIndex} entries of older paths go stale.
+     */
+    private int[] pathStamps;
+    private final CellOccupancy occupancy;
+    private final PathIndex pathIndex;
+    /**
+     * Active citizens without a path.
+     */
+    private int unplanned;
+
+    public CitizenStore(GameMap map, int capacity) {
+        this.map = map;
+        this.stepOffsets = new int[GameMap.DIRECTIONS];
+        for (int dir = 0; dir < GameMap.DIRECTIONS; dir++) {
+            stepOffsets[dir] = Position.DY[dir] * map.getWidth() + Position.DX[dir];
+        }
+        this.byteOffsets = new int[256];
+        for (int packed = 0; packed < 256; packed++) {
+            for (int i = 0; i < 4; i++) {
+                byteOffsets[packed] += stepOffsets[(packed >> (i * 2)) & 3];
+            }
+        }
+        this.ids = new int[capacity];
+        this.types = new byte[capacity];
+        this.priorities = new byte[capacity];
+        this.cells = new int[capacity];
+        this.status = new byte[capacity];
+        this.paths = new byte[capacity][];
+        this.pathLengths = new int[capacity];
+        this.pathCursors = new int[capacity];
+        this.pathStamps = new int[capacity];
+        this.occupancy = new CellOccupancy(capacity);
+        this.pathIndex = new PathIndex(map.getWidth(), map.getHeight());
+    }
+
+    private CitizenStore(CitizenStore source) {
+        this.map = source.map;
+        this.stepOffsets = source.stepOffsets;
+        this.byteOffsets = source.byteOffsets;
+        this.size = source.size;
+        this.ids = Arrays.copyOf(source.ids, size);
+        this.types = Arrays.copyOf(source.types, size);
+        this.priorities = Arrays.copyOf(source.priorities, size);
+        this.cells = Arrays.copyOf(source.cells, size);
+        this.status = Arrays.copyOf(source.status, size);
+        this.paths = Arrays.copyOf(source.paths, size);
+        this.pathLengths = Arrays.copyOf(source.pathLengths, size);
+        this.pathCursors = Arrays.copyOf(source.pathCursors, size);
+        this.pathStamps = Arrays.copyOf(source.pathStamps, size);
+        this.occupancy = source.occupancy.fork(size);
+        this.pathIndex = source.pathIndex.fork();
+        this.unplanned = source.unplanned;
+    }
+
+    /**
+     * Independent copy; path arrays and path index lists are shared since they are never written
+     * after being set or are copied first.
+     */
+    CitizenStore fork() {
+        return new CitizenStore(this);
+    }
+
+    /**
+     * Appends an active citizen without a path and returns its slot.
+     */
+    public int add(int id, CitizenType type, int priority, int cell) {
+        if (size == ids.length) {
+            grow();
+        }
+        int slot = size++;
+        ids[slot] = id;
+        types[slot] = (byte) type.ordinal();
+        priorities[slot] = (byte) priority;
+        cells[slot] = cell;
+        paths[slot] = NO_PATH;
+        occupancy.add(slot, cell);
+        unplanned++;
+        return slot;
+    }
+
+    private void grow() {
+        int capacity = Math.max(16, ids.length * 2);
+        ids = Arrays.copyOf(ids, capacity);
+        types = Arrays.copyOf(types, capacity);
+        priorities = Arrays.copyOf(priorities, capacity);
+        cells = Arrays.copyOf(cells, capacity);
+        status = Arrays.copyOf(status, capacity);
+        paths = Arrays.copyOf(paths, capacity);
+        pathLengths = Arrays.copyOf(pathLengths, capacity);
+        pathCursors = Arrays.copyOf(pathCursors, capacity);
+        pathStamps = Arrays.copyOf(pathStamps, capacity);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Citizen view(int slot) {
+        return new Citizen(this, slot);
+    }
+
+    public int getId(int slot) {
+        return ids[slot];
+    }
+
+    public CitizenType getType(int slot) {
+        return TYPES[types[slot]];
+    }
+
+    public int getPriority(int slot) {
+        return priorities[slot];
+    }
+
+    public int getCell(int slot) {
+        return cells[slot];
+    }
+
+    public Position getPosition(int slot) {
+        return map.positionOf(cells[slot]);
+    }
+
+    public boolean isActive(int slot) {
+        return status[slot] == ACTIVE;
+    }
+
+    public boolean isAlive(int slot) {
+        return status[slot] != DEAD;
+    }
+
+    public boolean isSafe(int slot) {
+        return status[slot] == SAFE;
+    }
+
+    void markSafe(int slot) {
+        resolve(slot, SAFE);
+    }
+
+    void markDead(int slot) {
+        resolve(slot, DEAD);
+    }
+
+    private void resolve(int slot, byte outcome) {
+        if (status[slot] != ACTIVE) {
+            return;
+        }
+        occupancy.remove(slot, cells[slot]);
+        if (!hasPath(slot)) {
+            unplanned--;
+        }
+        status[slot] = outcome;
+    }
+
+    /**
+     * Active citizens without a path, i.e. the plans the next move phase has to make.
+     */
+    public int unplannedCount() {
+        return unplanned;
+    }
+
+    /**
+     * @param directions one {@link Position#neighbors4()} direction per step, starting from the
+     *                   citizen's cell
+     */
+    public void setPath(int slot, byte[] directions) {
+        byte[] packed = new byte[(directions.length + 3) >> 2];
+        for (int i = 0; i < directions.length; i++) {
+            packed[i >> 2] |= (byte) (directions[i] << ((i & 3) * 2));
+        }
+        setPath(slot, packed, directions.length);
+    }
+
+    /**
+     * @param packed two-bit step directions, four per byte; not copied
+     */
+    void setPath(int slot, byte[] packed, int length) {
+        boolean wasPlanned = hasPath(slot);
+        paths[slot] = packed;
+        pathLengths[slot] = length;
+        pathCursors[slot] = 0;
+        pathStamps[slot]++;
+        if (status[slot] != ACTIVE) {
+            return;
+        }
+        if (wasPlanned != hasPath(slot)) {
+            unplanned += wasPlanned ? 1 : -1;
+        }
+        if (length > 0) {
+            indexPath(slot);
+        }
+    }
+
+    /**
+     * Adds the blocks the new path of {@code slot} enters to the {@link PathIndex}; a block left
+     * and entered again is added again.
+     */
+    private void indexPath(int slot) {
+        int width = map.getWidth();
+        int x = cells[slot] % width;
+        int y = cells[slot] / width;
+        int block = -1;
+        for (int step = 0; step < pathLengths[slot]; step++) {
+            int dir = stepDirection(slot, step);
+            x += Position.DX[dir];
+            y += Position.DY[dir];
+            int next = pathIndex.blockAt(x, y);
+            if (next != block) {
+                pathIndex.add(next, slot, pathStamps[slot], this);
+                block = next;
+            }
+        }
+    }
+
+    /**
+     * Whether {@code stamp} is the path {@code slot} is still following.
+     */
+    boolean isCurrentPath(int slot, int stamp) {
+        return status[slot] == ACTIVE && pathStamps[slot] == stamp && hasPath(slot);
+    }
+
+    public void clearPath(int slot) {
+        setPath(slot, NO_PATH, 0);
+    }
+
+    public boolean hasPath(int slot) {
+        return pathCursors[slot] < pathLengths[slot];
+    }
+
+    public int remainingSteps(int slot) {
+        return pathLengths[slot] - pathCursors[slot];
+    }
+
+    /**
+     * Direction of the {@code step}-th remaining step, in {@link Position#neighbors4()} order.
+     */
+    public int stepDirection(int slot, int step) {
+        int i = pathCursors[slot] + step;
+        return (paths[slot][i >> 2] >> ((i & 3) * 2)) & 3;
+    }
+
+    /**
+     * Moves the citizen onto the next cell of its path and returns that cell. Steps are relative
+     * to the citizen's cell, so the path only stays valid while the citizen is moved this way.
+     */
+    public int advance(int slot) {
+        int cell = cells[slot] + stepOffsets[stepDirection(slot, 0)];
+        pathCursors[slot]++;
+        occupancy.move(slot, cells[slot], cell);
+        cells[slot] = cell;
+        if (!hasPath(slot)) {
+            unplanned++;
+        }
+        return cell;
+    }
+
+    public List<Position> remainingPath(int slot) {
+        List<Position> path = new ArrayList<>(remainingSteps(slot));
+        int cell = cells[slot];
+        for (int step = 0; step < remainingSteps(slot); step++) {
+            cell += stepOffsets[stepDirection(slot, step)];
+            path.add(map.positionOf(cell));
+        }
+        return path;
+    }
+
+    /**
+     * Slots of the active citizens standing on any of {@code targets}, by cell and then slot.
+     */
+    public int[] activeOn(BitSet targets) {
+        long[] found = new long[8];
+        int count = 0;
+        for (int cell = targets.nextSetBit(0); cell >= 0; cell = targets.nextSetBit(cell + 1)) {
+            for (int slot = occupancy.first(cell); slot >= 0; slot = occupancy.next(slot)) {
+                if (count == found.length) {
+                    found = Arrays.copyOf(found, count * 2);
+                }
+                found[count++] = (long) cell << 32 | slot;
+            }
+        }
+        Arrays.sort(found, 0, count);
+        int[] slots = new int[count];
+        for (int i = 0; i < count; i++) {
+            slots[i] = (int) found[i];
+        }
+        return slots;
+    }
+
+    /**
+     * Drops the plans of active citizens whose remaining path crosses any of {@code targets}. Only
+     * paths listed in the {@link PathIndex} under the targets' blocks are walked, and only while
+     * the targets are still within reach of the steps left.
+     */
+    public void clearPathsCrossing(BitSet targets) {
+        if (targets.isEmpty()) {
+            return;
+        }
+        int width = map.getWidth();
+        int[] bounds = {Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MIN_VALUE, Integer.MIN_VALUE};
+        BitSet blocks = new BitSet(pathIndex.blockCount());
+        for (int cell = targets.nextSetBit(0); cell >= 0; cell = targets.nextSetBit(cell + 1)) {
+            bounds[0] = Math.min(bounds[0], cell % width);
+            bounds[1] = Math.min(bounds[1], cell / width);
+            bounds[2] = Math.max(bounds[2], cell % width);
+            bounds[3] = Math.max(bounds[3], cell / width);
+            blocks.set(pathIndex.blockOf(cell));
+        }
+        int[] candidates = new int[8];
+        int count = 0;
+        for (int block = blocks.nextSetBit(0); block >= 0; block = blocks.nextSetBit(block + 1)) {
+            int live = pathIndex.prune(block, this);
+            long[] entries = pathIndex.entries(block);
+            if (count + live > candidates.length) {
+                candidates = Arrays.copyOf(candidates, Math.max(count + live, candidates.length * 2));
+            }
+            for (int i = 0; i < live; i++) {
+                candidates[count++] = (int) entries[i];
+            }
+        }
+        Arrays.sort(candidates, 0, count);
+        for (int i = 0; i < count; i++) {
+            int slot = candidates[i];
+            if ((i == 0 || slot != candidates[i - 1]) && crosses(slot, targets, bounds, blocks)) {
+                clearPath(slot);
+            }
+        }
+    }
+
+    private boolean crosses(int slot, BitSet targets, int[] bounds, BitSet blocks) {
+        int width = map.getWidth();
+        int cell = cells[slot];
+        int remaining = remainingSteps(slot);
+        int step = 0;
+        while (true) {
+            int x = cell % width;
+            int y = cell / width;
+            int distance = Math.max(0, Math.max(bounds[0] - x, x - bounds[2]))
+                    + Math.max(0, Math.max(bounds[1] - y, y - bounds[3]));
+            if (step > 0 && distance == 0 && targets.get(cell)) {
+                return true;
+            }
+            if (step == remaining || distance > remaining - step) {
+                return false;
+            }
+            // None of the next skip - 1 steps can land on a target: they stay out of the targets'
+            // bounds, or inside a block without targets. Walk them unchecked, a whole byte at a
+            // time where possible.
+            int skip = Math.max(1, distance);
+            if (!blocks.get(pathIndex.blockAt(x, y))) {
+                int inX = x & (PathIndex.BLOCK_SIZE - 1);
+                int inY = y & (PathIndex.BLOCK_SIZE - 1);
+                int inside = Math.min(Math.min(inX, PathIndex.BLOCK_SIZE - 1 - inX),
+                        Math.min(inY, PathIndex.BLOCK_SIZE - 1 - inY));
+                skip = Math.min(Math.max(skip, inside + 1), remaining - step);
+            }
+            while (skip > 0) {
+                int i = pathCursors[slot] + step;
+                if ((i & 3) == 0 && skip >= 4) {
+                    cell += byteOffsets[paths[slot][i >> 2] & 0xFF];
+                    step += 4;
+                    skip -= 4;
+                } else {
+                    cell += stepOffsets[stepDirection(slot, step)];
+                    step++;
+                    skip--;
+                }
+            }
+        }
+    }
+}
@@ -2,27 +2,28 @@ package com.andr3yqq.vulcanoeruptiongame.model;
 
 import lombok.Getter;
 
-import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.Optional;
-import java.util.Queue;
 
 /**
- * Immutable layout describing roads/houses/safe zones. Dynamic state (lava, barricades)
- * lives inside {@link Tile} instances.
+ * Immutable layout describing roads/houses/safe zones, packed into a {@link PackedGrid} that is
+ * never written after construction. One layout can back any number of simultaneous runs; the
+ * per-run state (lava, barricades, opened roads) lives in a {@link MapOverlay}.
  */
 @Getter
 public class GameMap {
 
-    private final Tile[][] grid;
+    /**
+     * Number of directions accepted by {@link MapOverlay#neighborIndex(int, int)}.
+     */
+    public static final int DIRECTIONS = 4;
+
+    private final PackedGrid grid;
     private final List<Position> houses;
     private final List<Position> safeZones;
     private final Position volcanoSource;
 
-    public GameMap(Tile[][] grid, List<Position> houses, List<Position> safeZones, Position volcanoSource) {
+    public GameMap(PackedGrid grid, List<Position> houses, List<Position> safeZones, Position volcanoSource) {
         this.grid = grid;
         this.houses = houses;
         this.safeZones = safeZones;
@@ -30,80 +31,35 @@ public class GameMap {
     }
 
     public int getWidth() {
-        return grid[0].length;
+        return grid.getWidth();
     }
 
     public int getHeight() {
-        return grid.length;
+        return grid.getHeight();
     }
 
-    public Tile getTile(Position p) {
-        return grid[p.y()][p.x()];
+    public int indexOf(Position p) {
+        return grid.index(p.x(), p.y());
     }
 
-    public boolean isInside(Position p) {
-        return p.x() >= 0 && p.y() >= 0 && p.x() < getWidth() && p.y() < getHeight();
+    public Position positionOf(int index) {
+        return new Position(index % grid.getWidth(), index / grid.getWidth());
     }
 
-    public boolean isTraversable(Position p) {
-        return isInside(p) && getTile(p).isTraversable();
+    public TileType getType(int index) {
+        return grid.getType(index);
     }
 
-    public boolean isSafeZone(Position p) {
-        return isInside(p) && getTile(p).getType() == TileType.SAFE_ZONE;
-    }
-
-    public List<Position> neighbors(Position p) {
-        List<Position> filtered = new ArrayList<>(4);
-        for (Position neighbor : p.neighbors4()) {
-            if (!isInside(neighbor)) {
-                continue;
-            }
-            TileType type = getTile(neighbor).getType();
-            if (type == TileType.WALL || type == TileType.VOLCANO) {
-                continue;
-            }
-            filtered.add(neighbor);
-        }
-        return filtered;
+    public boolean isSafeZone(int index) {
+        return grid.getType(index) == TileType.SAFE_ZONE;
     }
 
-    /**
-     * BFS for the current traversable layout (lava/barricades considered).
-     */
-    public Optional<List<Position>> shortestPathToSafeZone(Position from) {
-        Queue<Position> queue = new ArrayDeque<>();
-        Map<Position, Position> parent = new HashMap<>();
-        queue.add(from);
-        parent.put(from, null);
-
-        while (!queue.isEmpty()) {
-            Position current = queue.poll();
-            if (!from.equals(current) && isSafeZone(current)) {
-                return Optional.of(reconstructPath(parent, current));
-            }
-            for (Position neighbor : neighbors(current)) {
-                if (parent.containsKey(neighbor)) {
-                    continue;
-                }
-                if (!getTile(neighbor).isTraversable() && !isSafeZone(neighbor)) {
-                    continue;
-                }
-                parent.put(neighbor, current);
-                queue.add(neighbor);
-            }
-        }
-        return Optional.empty();
+    public boolean isInside(Position p) {
+        return p.x() >= 0 && p.y() >= 0 && p.x() < getWidth() && p.y() < getHeight();
     }
 
-    private List<Position> reconstructPath(Map<Position, Position> parent, Position target) {
-        List<Position> path = new ArrayList<>();
-        Position cursor = target;
-        while (cursor != null) {
-            path.add(0, cursor);
-            cursor = parent.get(cursor);
-        }
-        return path;
+    public boolean isSafeZone(Position p) {
+        return isInside(p) && isSafeZone(indexOf(p));
     }
 
     public static GameMap fromTemplate(String... template) {
@@ -112,7 +68,7 @@ public class GameMap {
             throw new IllegalArgumentException("Template must have at least one row");
         }
         int width = template[0].length();
-        Tile[][] grid = new Tile[height][width];
+        PackedGrid grid = new PackedGrid(width, height);
         List<Position> houses = new ArrayList<>();
         List<Position> safeZones = new ArrayList<>();
         Position volcano = null;
@@ -123,30 +79,31 @@ public class GameMap {
             }
             for (int x = 0; x < width; x++) {
                 char symbol = template[y].charAt(x);
-                Tile tile;
+                TileType type;
                 switch (symbol) {
                     case 'H' -> {
-                        tile = new Tile(TileType.HOUSE);
+                        type = TileType.HOUSE;
                         houses.add(new Position(x, y));
                     }
                     case 'S' -> {
-                        tile = new Tile(TileType.SAFE_ZONE);
+                        type = TileType.SAFE_ZONE;
                         safeZones.add(new Position(x, y));
                     }
                     case 'V' -> {
-                        tile = new Tile(TileType.VOLCANO);
+                        type = TileType.VOLCANO;
                         volcano = new Position(x, y);
                     }
-                    case 'W' -> tile = new Tile(TileType.WALL);
-                    case 'R', '.' -> tile = new Tile(TileType.ROAD);
+                    case 'W' -> type = TileType.WALL;
+                    case 'R', '.' -> type = TileType.ROAD;
                     default -> throw new IllegalStateException("Unknown symbol: " + symbol);
                 }
-                grid[y][x] = tile;
+                grid.setType(grid.index(x, y), type);
             }
         }
         if (volcano == null) {
             throw new IllegalStateException("Map template missing volcano vent");
         }
+        grid.compact();
         return new GameMap(grid, houses, safeZones, volcano);
     }
 
@@ -0,0 +1,115 @@
+package com.andr3yqq.vulcanoeruptiongame.model;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Procedural layouts by generator arguments, evicting the least recently used beyond a fixed
+ * capacity. Layouts are immutable, so one cached map backs any number of games. A map is generated
+ * once even when several threads ask for it at the same time: the first caller (or the background
+ * executor, for {@link #prefetch}) generates it and the others wait for that result.
+ */
+public final class MapCache {
+
+    public record Key(int width, int height, int houses, int safeZones, long seed) {
+    }
+
+    private final int capacity;
+    private final Executor executor;
+    private final Map<Key, CompletableFuture<GameMap>> entries;
+
+    public MapCache(int capacity) {
+        this(capacity, Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("map-generator-", 0).factory()));
+    }
+
+    public MapCache(int capacity, Executor executor) {
+        this.capacity = capacity;
+        this.executor = executor;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, CompletableFuture<GameMap>> eldest) {
+                return size() > MapCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * The cached map, waiting for it if it is still being generated, or a new one generated on the
+     * calling thread.
+     */
+    public GameMap get(Key key) {
+        CompletableFuture<GameMap> future;
+        boolean generateHere = false;
+        synchronized (entries) {
+            future = entries.get(key);
+            if (future == null) {
+                future = new CompletableFuture<>();
+                entries.put(key, future);
+                generateHere = true;
+            }
+        }
+        if (generateHere) {
+            generate(key, future);
+        }
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw ex.getCause() instanceof RuntimeException cause ? cause : ex;
+        }
+    }
+
+    /**
+     * Starts generating {@code key} in the background unless it is cached or already underway.
+     */
+    public CompletableFuture<GameMap> prefetch(Key key) {
+        CompletableFuture<GameMap> future;
+        synchronized (entries) {
+            future = entries.get(key);
+            if (future != null) {
+                return future;
+            }
+            future = new CompletableFuture<>();
+            entries.put(key, future);
+        }
+        CompletableFuture<GameMap> pending = future;
+        executor.execute(() -> generate(key, pending));
+        return future;
+    }
+
+    public boolean isReady(Key key) {
+        synchronized (entries) {
+            CompletableFuture<GameMap> future = entries.get(key);
+            return future != null && future.isDone() && !future.isCompletedExceptionally();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private void generate(Key key, CompletableFuture<GameMap> future) {
+        try {
+            future.complete(RandomMapGenerator.generate(key.width(), key.height(), key.houses(), key.safeZones(),
+                    key.seed()));
+        } catch (Throwable ex) {
+            // Forget the failure, so the next request tries again, and never leave waiters hanging;
+            // an OutOfMemoryError on a large map is the likeliest cause.
+            synchronized (entries) {
+                entries.remove(key, future);
+            }
+            future.completeExceptionally(ex);
+            if (ex instanceof Error error) {
+                throw error;
+            }
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.andr3yqq.vulcanoeruptiongame.model;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binary layout file, opened by memory-mapping instead of parsing. Big-endian: a 16-byte header
+ * (magic, version, width, height), then one {@link TileType} ordinal byte per cell in row-major
+ * order, then the tables: vent x and y, then house and safe-zone counts each followed by x/y
+ * pairs. The tables come last so a map can be written while it is still being generated. Reading
+ * checks the header and every table entry, so a malformed file fails with an {@link IOException};
+ * cell bytes are checked lazily, as they are read.
+ */
+public final class MapFile {
+    private static final int MAGIC = 0x564D4150; // "VMAP"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final TileType[] TYPES = TileType.values();
+    private static final byte HOUSE = (byte) TileType.HOUSE.ordinal();
+    private static final byte SAFE_ZONE = (byte) TileType.SAFE_ZONE.ordinal();
+    private static final byte VOLCANO = (byte) TileType.VOLCANO.ordinal();
+
+    private MapFile() {
+    }
+
+    public static void write(GameMap map, Path file) throws IOException {
+        int width = map.getWidth();
+        int height = map.getHeight();
+        try (DataOutputStream out = open(file)) {
+            writeHeader(out, width, height);
+            byte[] row = new byte[width];
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    row[x] = (byte) map.getType(y * width + x).ordinal();
+                }
+                out.write(row);
+            }
+            writeTables(out, map.getVolcanoSource(), map.getHouses(), map.getSafeZones());
+        }
+    }
+
+    /**
+     * Streams a {@link StreamingMazeGenerator} map straight to {@code file} with one row in memory
+     * at a time. House positions are spilled to a temporary file next to {@code file} and appended
+     * once the rows are written, so memory does not grow with the house count either. Maps must
+     * still fit {@link #read}, i.e. have at most {@link Integer#MAX_VALUE} cells; larger ones can
+     * only be streamed to a {@link StreamingMazeGenerator.RowSink}.
+     */
+    public static void writeProcedural(Path file, int width, int height, long houseCount, int safeZoneCount,
+                                       long seed) throws IOException {
+        int w = Math.max(15, width | 1);
+        int h = Math.max(15, height | 1);
+        if ((long) w * h > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Map too large for a map file: " + w + "x" + h);
+        }
+        int[] houses = new int[1];
+        List<Position> safeZones = new ArrayList<>();
+        Position[] volcano = new Position[1];
+        try (DataOutputStream out = open(file)) {
+            Path spill = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName() + ".", ".houses");
+            try {
+                try (DataOutputStream houseOut = open(spill)) {
+                    writeHeader(out, w, h);
+                    StreamingMazeGenerator.generate(width, height, houseCount, safeZoneCount, seed, (y, row) -> {
+                        try {
+                            for (int x = 0; x < row.length; x++) {
+                                if (row[x] == HOUSE) {
+                                    houseOut.writeInt(x);
+                                    houseOut.writeInt(y);
+                                    houses[0]++;
+                                } else if (row[x] == SAFE_ZONE) {
+                                    safeZones.add(new Position(x, y));
+                                } else if (row[x] == VOLCANO) {
+                                    volcano[0] = new Position(x, y);
+                                }
+                            }
+                            out.write(row);
+                        } catch (IOException ex) {
+                            throw new UncheckedIOException(ex);
+                        }
+                    });
+                }
+                out.writeInt(volcano[0].x());
+                out.writeInt(volcano[0].y());
+                out.writeInt(houses[0]);
+                Files.copy(spill, out);
+                writePositions(out, safeZones);
+            } finally {
+                Files.deleteIfExists(spill);
+            }
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    /**
+     * Maps {@code file} into memory. The returned layout reads its cells straight from the file
+     * mapping; only the house and safe-zone tables are copied. Opening does no per-cell work: the
+     * header and tables are checked here, while a cell byte that is no {@link TileType} ordinal is
+     * only reported by {@link MappedCellStore} once it is read.
+     */
+    public static GameMap read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES) {
+                throw new IOException("Not a map file");
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Not a map file");
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported map file version " + version);
+            }
+            int width = header.getInt();
+            int height = header.getInt();
+            long cells = (long) width * height;
+            if (width <= 0 || height <= 0 || cells > Integer.MAX_VALUE) {
+                throw new IOException("Map of " + width + "x" + height + " cells cannot be loaded");
+            }
+            if (size < HEADER_BYTES + cells + 16) {
+                throw new IOException("Truncated map file");
+            }
+            ByteBuffer cellBytes = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES, cells);
+            ByteBuffer tables = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES + cells,
+                    size - HEADER_BYTES - cells);
+            Position volcano = new Position(tables.getInt(), tables.getInt());
+            checkCell(cellBytes, width, height, volcano, VOLCANO, "Volcano");
+            List<Position> houses = readPositions(tables, cellBytes, width, height, HOUSE, "House");
+            List<Position> safeZones = readPositions(tables, cellBytes, width, height, SAFE_ZONE, "Safe zone");
+            PackedGrid grid = new PackedGrid(width, height, new MappedCellStore(cellBytes));
+            return new GameMap(grid, houses, safeZones, volcano);
+        } catch (BufferUnderflowException ex) {
+            throw new IOException("Truncated map file", ex);
+        }
+    }
+
+    private static DataOutputStream open(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16));
+    }
+
+    private static void writeHeader(DataOutputStream out, int width, int height) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(width);
+        out.writeInt(height);
+    }
+
+    private static void writeTables(DataOutputStream out, Position volcano, List<Position> houses,
+                                    List<Position> safeZones) throws IOException {
+        out.writeInt(volcano.x());
+        out.writeInt(volcano.y());
+        writePositions(out, houses);
+        writePositions(out, safeZones);
+    }
+
+    private static void writePositions(DataOutputStream out, List<Position> positions) throws IOException {
+        out.writeInt(positions.size());
+        for (Position position : positions) {
+            out.writeInt(position.x());
+            out.writeInt(position.y());
+        }
+    }
+
+    private static List<Position> readPositions(ByteBuffer in, ByteBuffer cellBytes, int width, int height,
+                                                byte type, String name) throws IOException {
+        int count = in.getInt();
+        if (count < 0 || count > in.remaining() / 8) {
+            throw new IOException("Corrupt position table");
+        }
+        List<Position> positions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Position position = new Position(in.getInt(), in.getInt());
+            checkCell(cellBytes, width, height, position, type, name);
+            positions.add(position);
+        }
+        return positions;
+    }
+
+    private static void checkCell(ByteBuffer cellBytes, int width, int height, Position position, byte type,
+                                  String name) throws IOException {
+        int x = position.x();
+        int y = position.y();
+        if (x < 0 || x >= width || y < 0 || y >= height) {
+            throw new IOException(name + " at " + position + " is outside the " + width + "x" + height + " map");
+        }
+        if (cellBytes.get(y * width + x) != type) {
+            throw new IOException(name + " at " + position + " is not on a " + TYPES[type] + " cell");
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.andr3yqq.vulcanoeruptiongame.model;
+
+import lombok.Getter;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Per-run cell state on top of a shared, read-only {@link GameMap}: lava, barricades and walls
+ * opened into roads. Each flag lives in its own paged bit set, so a run costs a few bits per cell
+ * it touched and any number of runs can share one layout. All queries that depend on dynamic
+ * state (traversability, neighbours, searches) go through the overlay.
+ */
+public class MapOverlay {
+    private static final int UNVISITED = -2;
+
+    @Getter
+    private final GameMap layout;
+    private final CellBits lava;
+    private final CellBits barricades;
+    private final CellBits openedRoads;
+
+    public MapOverlay(GameMap layout) {
+        this(layout, new CellBits(layout.getGrid().size()), new CellBits(layout.getGrid().size()),
+                new CellBits(layout.getGrid().size()));
+    }
+
+    private MapOverlay(GameMap layout, CellBits lava, CellBits barricades, CellBits openedRoads) {
+        this.layout = layout;
+        this.lava = lava;
+        this.barricades = barricades;
+        this.openedRoads = openedRoads;
+    }
+
+    /**
+     * Copy-on-write branch: both overlays keep sharing every page until one of them writes to it.
+     */
+    public MapOverlay fork() {
+        return new MapOverlay(layout, lava.fork(), barricades.fork(), openedRoads.fork());
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        lava.writeTo(out);
+        barricades.writeTo(out);
+        openedRoads.writeTo(out);
+    }
+
+    static MapOverlay readFrom(GameMap layout, DataInput in) throws IOException {
+        int size = layout.getGrid().size();
+        return new MapOverlay(layout, CellBits.readFrom(size, in), CellBits.readFrom(size, in),
+                CellBits.readFrom(size, in));
+    }
+
+    public Tile getTile(Position p) {
+        return new Tile(this, layout.indexOf(p));
+    }
+
+    public TileType getType(int index) {
+        return openedRoads.get(index) ? TileType.ROAD : layout.getType(index);
+    }
+
+    public boolean hasLava(int index) {
+        return lava.get(index);
+    }
+
+    public void setLava(int index, boolean value) {
+        lava.set(index, value);
+    }
+
+    public boolean isBarricaded(int index) {
+        return barricades.get(index);
+    }
+
+    public void setBarricaded(int index, boolean value) {
+        barricades.set(index, value);
+    }
+
+    /**
+     * Turns a wall into a road for this run only; the layout keeps its wall.
+     */
+    public void openRoad(int index) {
+        openedRoads.set(index, true);
+    }
+
+    /**
+     * Lava or barricades on cells {@code 64 * word} to {@code 64 * word + 63}, one bit per cell,
+     * for searches that test a row 64 cells at a time.
+     */
+    public long blockedWord(int word) {
+        return lava.word(word) | barricades.word(word);
+    }
+
+    /**
+     * Walls opened by {@link #openRoad(int)}, in the layout of {@link #blockedWord(int)}.
+     */
+    public long openedRoadWord(int word) {
+        return openedRoads.word(word);
+    }
+
+    public boolean isTraversable(int index) {
+        if (lava.get(index)) {
+            return false;
+        }
+        return switch (getType(index)) {
+            case ROAD, HOUSE, SAFE_ZONE -> !barricades.get(index);
+            case VOLCANO, WALL -> false;
+        };
+    }
+
+    public boolean isTraversable(Position p) {
+        return layout.isInside(p) && isTraversable(layout.indexOf(p));
+    }
+
+    public List<Position> neighbors(Position p) {
+        List<Position> filtered = new ArrayList<>(GameMap.DIRECTIONS);
+        if (!layout.isInside(p)) {
+            return filtered;
+        }
+        int index = layout.indexOf(p);
+        for (int dir = 0; dir < GameMap.DIRECTIONS; dir++) {
+            int neighbor = neighborIndex(index, dir);
+            if (neighbor >= 0) {
+                filtered.add(layout.positionOf(neighbor));
+            }
+        }
+        return filtered;
+    }
+
+    /**
+     * Allocation-free counterpart of {@link #neighbors(Position)}: the cell next to {@code index}
+     * in direction {@code dir} ({@link Position#neighbors4()} order), or -1 when that cell is
+     * outside the map, a wall or the volcano.
+     */
+    public int neighborIndex(int index, int dir) {
+        int width = layout.getWidth();
+        int x = index % width + Position.DX[dir];
+        int y = index / width + Position.DY[dir];
+        if (x < 0 || y < 0 || x >= width || y >= layout.getHeight()) {
+            return -1;
+        }
+        int neighbor = index + Position.DY[dir] * width + Position.DX[dir];
+        TileType type = getType(neighbor);
+        return type == TileType.WALL || type == TileType.VOLCANO ? -1 : neighbor;
+    }
+
+    /**
+     * BFS for the current traversable layout (lava/barricades considered). Runs a full search per
+     * call; the simulation goes through a
+     * {@link com.andr3yqq.vulcanoeruptiongame.pathfinding.SafeZonePathfinder} instead.
+     */
+    public Optional<List<Position>> shortestPathToSafeZone(Position from) {
+        int size = layout.getGrid().size();
+        int start = layout.indexOf(from);
+        int[] parent = new int[size];
+        Arrays.fill(parent, UNVISITED);
+        int[] queue = new int[size];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = start;
+        parent[start] = -1;
+
+        while (head < tail) {
+            int current = queue[head++];
+            if (current != start && layout.isSafeZone(current)) {
+                return Optional.of(reconstructPath(parent, current));
+            }
+            for (int dir = 0; dir < GameMap.DIRECTIONS; dir++) {
+                int neighbor = neighborIndex(current, dir);
+                if (neighbor < 0 || parent[neighbor] != UNVISITED) {
+                    continue;
+                }
+                if (!isTraversable(neighbor) && !layout.isSafeZone(neighbor)) {
+                    continue;
+                }
+                parent[neighbor] = current;
+                queue[tail++] = neighbor;
+            }
+        }
+        return Optional.empty();
+    }
+
+    private List<Position> reconstructPath(int[] parent, int target) {
+        List<Position> path = new ArrayList<>();
+        for (int cursor = target; cursor >= 0; cursor = parent[cursor]) {
+            path.add(layout.positionOf(cursor));
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * Bit-set pages allocated across all flags, i.e. what this run costs on top of the layout.
+     */
+    public int allocatedPages() {
+        return lava.allocatedPages() + barricades.allocatedPages() + openedRoads.allocatedPages();
+    }
+}
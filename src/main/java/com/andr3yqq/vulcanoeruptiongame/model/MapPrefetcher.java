@@ -0,0 +1,47 @@
+package com.andr3yqq.vulcanoeruptiongame.model;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongFunction;
+
+/**
+ * Hands out random seeds whose maps are already in a {@link MapCache}: it always keeps the next
+ * few seeds chosen and their maps generating in the background, so taking one rarely waits.
+ * Meant for a single caller, e.g. the FX thread.
+ */
+public final class MapPrefetcher {
+    private final MapCache cache;
+    private final LongFunction<MapCache.Key> keys;
+    private final Deque<Long> upcoming = new ArrayDeque<>();
+
+    /**
+     * @param keys  cache key of the map for a seed
+     * @param ahead how many maps to keep ready; should stay well below the cache capacity
+     */
+    public MapPrefetcher(MapCache cache, LongFunction<MapCache.Key> keys, int ahead) {
+        this.cache = cache;
+        this.keys = keys;
+        for (int i = 0; i < ahead; i++) {
+            scheduleNext();
+        }
+    }
+
+    /**
+     * Seed of the oldest prepared map; its map is then a cache hit (possibly still finishing).
+     * Another seed starts generating in its place.
+     */
+    public long nextSeed() {
+        long seed = upcoming.isEmpty() ? ThreadLocalRandom.current().nextLong() : upcoming.poll();
+        // Touch the entry so it is the most recently used when the caller asks for it.
+        cache.prefetch(keys.apply(seed));
+        scheduleNext();
+        return seed;
+    }
+
+    private void scheduleNext() {
+        long seed = ThreadLocalRandom.current().nextLong();
+        upcoming.add(seed);
+        cache.prefetch(keys.apply(seed));
+    }
+}
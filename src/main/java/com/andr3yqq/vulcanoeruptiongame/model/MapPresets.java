@@ -4,6 +4,12 @@ package com.andr3yqq.vulcanoeruptiongame.model;
  * Central place for map templates of different difficulties.
  */
 public final class MapPresets {
+    /**
+     * Recent procedural maps: the ones being prefetched plus those of recent games, so replays and
+     * batch runs of the same seeds skip generation.
+     */
+    private static final MapCache PROCEDURAL_MAPS = new MapCache(64);
+
     private MapPresets() {
     }
 
@@ -57,6 +63,17 @@ public final class MapPresets {
     }
 
     public static GameMap proceduralMap(long seed) {
-        return RandomMapGenerator.generate(29, 23, 18, 3, seed);
+        return PROCEDURAL_MAPS.get(proceduralKey(seed));
+    }
+
+    public static MapCache.Key proceduralKey(long seed) {
+        return new MapCache.Key(29, 23, 18, 3, seed);
+    }
+
+    /**
+     * Keeps the next few procedural maps generating in the background, for instant new games.
+     */
+    public static MapPrefetcher proceduralPrefetcher(int ahead) {
+        return new MapPrefetcher(PROCEDURAL_MAPS, MapPresets::proceduralKey, ahead);
     }
 }
@@ -0,0 +1,49 @@
+package com.andr3yqq.vulcanoeruptiongame.model;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Read-only cells of a memory-mapped {@link MapFile}; the operating system pages them in on first
+ * access, so opening a map costs nothing per cell. Bytes are checked as they are read instead, and
+ * one that is no {@link TileType} ordinal fails with an {@link IllegalStateException} naming the
+ * cell. {@link #copy()} gives a writable in-memory copy.
+ */
+public class MappedCellStore implements CellStore {
+    private static final int TYPE_COUNT = TileType.values().length;
+
+    private final ByteBuffer cells;
+
+    MappedCellStore(ByteBuffer cells) {
+        this.cells = cells;
+    }
+
+    @Override
+    public byte get(int index) {
+        byte value = cells.get(index);
+        if (value < 0 || value >= TYPE_COUNT) {
+            throw corrupt(index, value);
+        }
+        return value;
+    }
+
+    @Override
+    public void set(int index, byte value) {
+        throw new UnsupportedOperationException("Mapped map files are read-only");
+    }
+
+    @Override
+    public CellStore copy() {
+        byte[] bytes = new byte[cells.capacity()];
+        cells.get(0, bytes);
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] < 0 || bytes[i] >= TYPE_COUNT) {
+                throw corrupt(i, bytes[i]);
+            }
+        }
+        return new ArrayCellStore(bytes);
+    }
+
+    private static IllegalStateException corrupt(int index, byte value) {
+        return new IllegalStateException("Corrupt map file: cell " + index + " holds unknown tile type " + value);
+    }
+}
@@ -0,0 +1,59 @@
+package com.andr3yqq.vulcanoeruptiongame.model;
+
+import lombok.Getter;
+
+/**
+ * Packed layout storage: one byte per cell indexed by {@code y * width + x}, holding the
+ * {@link TileType} ordinal. Maps of at least {@link #CHUNKED_THRESHOLD} cells are kept in a
+ * {@link ChunkedCellStore}, smaller ones in one array.
+ */
+@Getter
+public class PackedGrid {
+    public static final int CHUNKED_THRESHOLD = 2048 * 2048;
+    private static final int TYPE_MASK = 0x07;
+    private static final TileType[] TYPES = TileType.values();
+
+    private final int width;
+    private final int height;
+    private final CellStore store;
+
+    public PackedGrid(int width, int height) {
+        this(width, height, (long) width * height >= CHUNKED_THRESHOLD
+                ? new ChunkedCellStore(width, height)
+                : new ArrayCellStore(width * height));
+    }
+
+    public PackedGrid(int width, int height, CellStore store) {
+        this.width = width;
+        this.height = height;
+        this.store = store;
+    }
+
+    public PackedGrid copy() {
+        return new PackedGrid(width, height, store.copy());
+    }
+
+    public boolean isChunked() {
+        return store instanceof ChunkedCellStore;
+    }
+
+    public void compact() {
+        store.compact();
+    }
+
+    public int index(int x, int y) {
+        return y * width + x;
+    }
+
+    public int size() {
+        return width * height;
+    }
+
+    public TileType getType(int index) {
+        return TYPES[store.get(index) & TYPE_MASK];
+    }
+
+    public void setType(int index, TileType type) {
+        store.set(index, (byte) type.ordinal());
+    }
+}
@@ -0,0 +1,121 @@
+package com.andr3yqq.vulcanoeruptiongame.model;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Reverse index from blocks of {@link #BLOCK_SIZE}x{@link #BLOCK_SIZE} cells to the citizens whose
+ * planned path crosses them, so a change only has to look at the paths through its blocks.
+ * Entries are (path stamp, slot) pairs appended when a path is set; a replan or resolution makes
+ * the old ones stale, and stale entries are dropped whenever their block's list is read or full.
+ * Lists are shared copy-on-write between forks. Kept current by {@link CitizenStore}.
+ */
+final class PathIndex {
+    static final int BLOCK_SHIFT = 6;
+    static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+
+    private final int width;
+    private final int blocksPerRow;
+    private final long[][] entries;
+    private final int[] sizes;
+    /**
+     * Blocks whose list belongs to this index alone; the others are copied before a write.
+     */
+    private final BitSet owned;
+
+    PathIndex(int width, int height) {
+        this.width = width;
+        this.blocksPerRow = (width + BLOCK_SIZE - 1) >> BLOCK_SHIFT;
+        int blocks = blocksPerRow * ((height + BLOCK_SIZE - 1) >> BLOCK_SHIFT);
+        this.entries = new long[blocks][];
+        this.sizes = new int[blocks];
+        this.owned = new BitSet(blocks);
+    }
+
+    private PathIndex(PathIndex source) {
+        this.width = source.width;
+        this.blocksPerRow = source.blocksPerRow;
+        this.entries = source.entries.clone();
+        this.sizes = source.sizes.clone();
+        this.owned = new BitSet(entries.length);
+    }
+
+    /**
+     * Copy sharing every list with this index until either side writes to it.
+     */
+    PathIndex fork() {
+        owned.clear();
+        return new PathIndex(this);
+    }
+
+    int blockOf(int cell) {
+        return blockAt(cell % width, cell / width);
+    }
+
+    int blockAt(int x, int y) {
+        return (y >> BLOCK_SHIFT) * blocksPerRow + (x >> BLOCK_SHIFT);
+    }
+
+    int blockCount() {
+        return entries.length;
+    }
+
+    /**
+     * Records that the path stamped {@code stamp} of {@code slot} crosses {@code block}.
+     */
+    void add(int block, int slot, int stamp, CitizenStore store) {
+        long[] list = writable(block);
+        if (list == null) {
+            list = new long[4];
+            entries[block] = list;
+            owned.set(block);
+        } else if (sizes[block] == list.length) {
+            dropStale(block, store);
+            if (sizes[block] * 2 > list.length) {
+                list = Arrays.copyOf(list, list.length * 2);
+                entries[block] = list;
+            }
+        }
+        list[sizes[block]++] = (long) stamp << 32 | slot;
+    }
+
+    /**
+     * Drops the stale entries of {@code block} and returns how many are left; they are the first
+     * ones of {@link #entries(int)}.
+     */
+    int prune(int block, CitizenStore store) {
+        if (sizes[block] > 0) {
+            writable(block);
+            dropStale(block, store);
+        }
+        return sizes[block];
+    }
+
+    /**
+     * Valid until the next write to {@code block}.
+     */
+    long[] entries(int block) {
+        return entries[block];
+    }
+
+    private long[] writable(int block) {
+        long[] list = entries[block];
+        if (list != null && !owned.get(block)) {
+            list = list.clone();
+            entries[block] = list;
+            owned.set(block);
+        }
+        return list;
+    }
+
+    private void dropStale(int block, CitizenStore store) {
+        long[] list = entries[block];
+        int kept = 0;
+        for (int i = 0; i < sizes[block]; i++) {
+            if (store.isCurrentPath((int) list[i], (int) (list[i] >>> 32))) {
+                list[kept++] = list[i];
+            }
+        }
+        sizes[block] = kept;
+    }
+}
@@ -2,19 +2,38 @@ package com.andr3yqq.vulcanoeruptiongame.model;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Objects;
 
 /**
  * Immutable coordinate inside the map grid.
  */
 public record Position(int x, int y) {
 
+    /**
+     * Offsets of the four neighbours in {@link #neighbors4()} order, for loops that must not
+     * allocate.
+     */
+    static final int[] DX = {1, -1, 0, 0};
+    static final int[] DY = {0, 0, 1, -1};
+
+    /**
+     * Column offset of direction {@code dir}, for code outside this package.
+     */
+    public static int dx(int dir) {
+        return DX[dir];
+    }
+
+    /**
+     * Row offset of direction {@code dir}, for code outside this package.
+     */
+    public static int dy(int dir) {
+        return DY[dir];
+    }
+
     public List<Position> neighbors4() {
         List<Position> n = new ArrayList<>(4);
-        n.add(new Position(x + 1, y));
-        n.add(new Position(x - 1, y));
-        n.add(new Position(x, y + 1));
-        n.add(new Position(x, y - 1));
+        for (int dir = 0; dir < DX.length; dir++) {
+            n.add(new Position(x + DX[dir], y + DY[dir]));
+        }
         return n;
     }
 
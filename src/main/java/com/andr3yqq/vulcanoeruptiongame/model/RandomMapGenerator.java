@@ -1,224 +1,230 @@
 package com.andr3yqq.vulcanoeruptiongame.model;
 
-import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.Deque;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
-import java.util.Queue;
-import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.stream.LongStream;
 
 /**
- * Procedurally carves roads and places volcano/houses/safe zones.
+ * Procedurally carves roads and places volcano/houses/safe zones. Works on one flat tile array
+ * and int cell indices throughout; a map depends only on its arguments, each seed drawing from
+ * its own {@link SplittableRandom}.
  */
 public final class RandomMapGenerator {
 
+    private static final TileType[] TYPES = TileType.values();
+    private static final byte ROAD = (byte) TileType.ROAD.ordinal();
+    private static final byte HOUSE = (byte) TileType.HOUSE.ordinal();
+    private static final byte SAFE_ZONE = (byte) TileType.SAFE_ZONE.ordinal();
+    private static final byte VOLCANO = (byte) TileType.VOLCANO.ordinal();
+    private static final byte WALL = (byte) TileType.WALL.ordinal();
+
     private RandomMapGenerator() {
     }
 
     public static GameMap generate(int width, int height, int houseCount, int safeZoneCount, long seed) {
         int w = Math.max(15, width | 1); // force odd dimensions for maze carving
         int h = Math.max(15, height | 1);
-        char[][] layout = new char[h][w];
-        for (int y = 0; y < h; y++) {
-            for (int x = 0; x < w; x++) {
-                layout[y][x] = 'W';
-            }
-        }
+        byte[] grid = new byte[w * h];
+        Arrays.fill(grid, WALL);
 
-        Random random = new Random(seed);
-        carveMaze(layout, random);
-        openExtraPassages(layout, random, 0.12);
+        SplittableRandom random = new SplittableRandom(seed);
+        carveMaze(grid, w, h, random);
+        openExtraPassages(grid, w, h, random, 0.12);
 
-        List<Position> roadTiles = collectRoads(layout);
-        if (roadTiles.isEmpty()) {
+        int volcano = selectVolcano(grid, w, h, random);
+        if (volcano < 0) {
             throw new IllegalStateException("No roads generated");
         }
+        grid[volcano] = VOLCANO;
 
-        Position volcano = selectVolcano(layout, roadTiles, random);
-        layout[volcano.y()][volcano.x()] = 'V';
-
-        Map<Position, Integer> distance = computeDistances(layout, volcano);
-        List<Position> safeZones = selectSafeZones(layout, distance, safeZoneCount);
-        for (Position pos : safeZones) {
-            layout[pos.y()][pos.x()] = 'S';
-        }
-
-        List<Position> houses = selectHouses(layout, distance, houseCount, random);
-        for (Position pos : houses) {
-            layout[pos.y()][pos.x()] = 'H';
-        }
+        int[] byDistance = new int[grid.length];
+        int reachable = orderByDistance(grid, w, volcano, byDistance);
+        selectSafeZones(grid, w, h, byDistance, reachable, safeZoneCount);
+        selectHouses(grid, byDistance, reachable, houseCount, random);
+        return toGameMap(grid, w, h, volcano);
+    }
 
-        String[] template = new String[h];
-        for (int y = 0; y < h; y++) {
-            template[y] = new String(layout[y]);
-        }
-        return GameMap.fromTemplate(template);
+    /**
+     * Maps for seeds {@code firstSeed .. firstSeed + count - 1}, generated in parallel and returned
+     * in seed order. Each map is identical to the one {@link #generate} returns for its seed.
+     */
+    public static List<GameMap> generateAll(int width, int height, int houseCount, int safeZoneCount,
+                                            long firstSeed, int count) {
+        return LongStream.range(firstSeed, firstSeed + count)
+                .parallel()
+                .mapToObj(seed -> generate(width, height, houseCount, safeZoneCount, seed))
+                .toList();
     }
 
-    private static void carveMaze(char[][] grid, Random random) {
-        int h = grid.length;
-        int w = grid[0].length;
-        boolean[][] visited = new boolean[h][w];
-        Deque<Position> stack = new ArrayDeque<>();
-        Position start = new Position(1, 1);
-        visited[start.y()][start.x()] = true;
-        grid[start.y()][start.x()] = '.';
-        stack.push(start);
-
-        int[][] directions = {{2, 0}, {-2, 0}, {0, 2}, {0, -2}};
-
-        while (!stack.isEmpty()) {
-            Position current = stack.peek();
-            List<int[]> neighbors = new ArrayList<>();
-            for (int[] dir : directions) {
-                int nx = current.x() + dir[0];
-                int ny = current.y() + dir[1];
-                if (nx <= 0 || ny <= 0 || nx >= w - 1 || ny >= h - 1) {
-                    continue;
-                }
-                if (!visited[ny][nx]) {
-                    neighbors.add(new int[]{nx, ny, dir[0], dir[1]});
-                }
+    /**
+     * Depth-first maze over the odd cells; an odd cell is still a wall exactly when it has not
+     * been visited.
+     */
+    private static void carveMaze(byte[] grid, int w, int h, SplittableRandom random) {
+        int[] stack = new int[(w / 2) * (h / 2) + 1];
+        int[] options = new int[4];
+        int top = 0;
+        int start = w + 1;
+        grid[start] = ROAD;
+        stack[top++] = start;
+
+        while (top > 0) {
+            int current = stack[top - 1];
+            int x = current % w;
+            int y = current / w;
+            int count = 0;
+            if (x + 2 < w - 1 && grid[current + 2] == WALL) {
+                options[count++] = 1;
+            }
+            if (x - 2 > 0 && grid[current - 2] == WALL) {
+                options[count++] = -1;
             }
-            if (neighbors.isEmpty()) {
-                stack.pop();
+            if (y + 2 < h - 1 && grid[current + 2 * w] == WALL) {
+                options[count++] = w;
+            }
+            if (y - 2 > 0 && grid[current - 2 * w] == WALL) {
+                options[count++] = -w;
+            }
+            if (count == 0) {
+                top--;
                 continue;
             }
-            int[] choice = neighbors.get(random.nextInt(neighbors.size()));
-            int nx = choice[0];
-            int ny = choice[1];
-            int betweenX = current.x() + choice[2] / 2;
-            int betweenY = current.y() + choice[3] / 2;
-            grid[betweenY][betweenX] = '.';
-            grid[ny][nx] = '.';
-            visited[ny][nx] = true;
-            stack.push(new Position(nx, ny));
+            int step = options[random.nextInt(count)];
+            grid[current + step] = ROAD;
+            grid[current + 2 * step] = ROAD;
+            stack[top++] = current + 2 * step;
         }
     }
 
-    private static void openExtraPassages(char[][] grid, Random random, double chance) {
-        int h = grid.length;
-        int w = grid[0].length;
+    private static void openExtraPassages(byte[] grid, int w, int h, SplittableRandom random, double chance) {
         for (int y = 1; y < h - 1; y++) {
-            for (int x = 1; x < w - 1; x++) {
-                if (grid[y][x] == 'W' && random.nextDouble() < chance) {
-                    grid[y][x] = '.';
+            for (int cell = y * w + 1; cell < y * w + w - 1; cell++) {
+                if (grid[cell] == WALL && random.nextDouble() < chance) {
+                    grid[cell] = ROAD;
                 }
             }
         }
     }
 
-    private static List<Position> collectRoads(char[][] grid) {
-        List<Position> roads = new ArrayList<>();
-        for (int y = 0; y < grid.length; y++) {
-            for (int x = 0; x < grid[0].length; x++) {
-                if (grid[y][x] == '.') {
-                    roads.add(new Position(x, y));
-                }
+    /**
+     * Road cell nearest the centre, jittered by up to three cells; -1 if there are no roads. A
+     * passage opened between four walls is not connected to the maze and is skipped.
+     */
+    private static int selectVolcano(byte[] grid, int w, int h, SplittableRandom random) {
+        int centerX = w / 2;
+        int centerY = h / 2;
+        int best = -1;
+        int bestScore = Integer.MAX_VALUE;
+        for (int cell = 0; cell < grid.length; cell++) {
+            if (grid[cell] != ROAD || grid[cell - 1] == WALL && grid[cell + 1] == WALL
+                    && grid[cell - w] == WALL && grid[cell + w] == WALL) {
+                continue;
+            }
+            int score = Math.abs(cell % w - centerX) + Math.abs(cell / w - centerY) + random.nextInt(4);
+            if (score < bestScore) {
+                best = cell;
+                bestScore = score;
             }
         }
-        return roads;
-    }
-
-    private static Position selectVolcano(char[][] grid, List<Position> roads, Random random) {
-        Position center = new Position(grid[0].length / 2, grid.length / 2);
-        return roads.stream()
-                .min(Comparator.comparingInt(pos -> manhattan(pos, center) + random.nextInt(4)))
-                .orElse(roads.get(0));
+        return best;
     }
 
-    private static Map<Position, Integer> computeDistances(char[][] grid, Position start) {
-        Map<Position, Integer> dist = new HashMap<>();
-        Queue<Position> queue = new ArrayDeque<>();
-        queue.add(start);
-        dist.put(start, 0);
-        while (!queue.isEmpty()) {
-            Position current = queue.poll();
-            int currentDist = dist.get(current);
-            for (Position neighbor : current.neighbors4()) {
-                if (!isRoadLike(grid, neighbor)) {
-                    continue;
-                }
-                if (dist.containsKey(neighbor)) {
+    /**
+     * BFS from {@code start} over everything but walls. The queue itself is the result: cells
+     * reachable from the start, in non-decreasing distance. Returns how many there are.
+     */
+    private static int orderByDistance(byte[] grid, int w, int start, int[] queue) {
+        boolean[] visited = new boolean[grid.length];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = start;
+        visited[start] = true;
+        while (head < tail) {
+            int current = queue[head++];
+            int x = current % w;
+            for (int dir = 0; dir < Position.DX.length; dir++) {
+                int nx = x + Position.DX[dir];
+                int next = current + Position.DY[dir] * w + Position.DX[dir];
+                if (nx < 0 || nx >= w || next < 0 || next >= grid.length
+                        || visited[next] || grid[next] == WALL) {
                     continue;
                 }
-                dist.put(neighbor, currentDist + 1);
-                queue.add(neighbor);
+                visited[next] = true;
+                queue[tail++] = next;
             }
         }
-        return dist;
+        return tail;
     }
 
-    private static boolean isRoadLike(char[][] grid, Position p) {
-        return p.isInside(grid[0].length, grid.length) && grid[p.y()][p.x()] != 'W';
-    }
-
-    private static List<Position> selectSafeZones(char[][] grid, Map<Position, Integer> distances, int safeCount) {
-        List<Position> candidates = new ArrayList<>();
-        for (Map.Entry<Position, Integer> entry : distances.entrySet()) {
-            Position pos = entry.getKey();
-            if (grid[pos.y()][pos.x()] == '.') {
-                candidates.add(pos);
+    /**
+     * Farthest roads from the volcano, preferring the map edge.
+     */
+    private static void selectSafeZones(byte[] grid, int w, int h, int[] byDistance, int reachable, int safeCount) {
+        int placed = 0;
+        for (int i = reachable - 1; i >= 0 && placed < safeCount; i--) {
+            int cell = byDistance[i];
+            if (grid[cell] == ROAD && isEdgeTile(cell % w, cell / w, w, h)) {
+                grid[cell] = SAFE_ZONE;
+                placed++;
             }
         }
-        candidates.sort(Comparator.comparingInt(distances::get).reversed());
-        List<Position> safeZones = new ArrayList<>();
-        for (Position candidate : candidates) {
-            if (safeZones.size() >= safeCount) {
-                break;
-            }
-            if (isEdgeTile(candidate, grid)) {
-                safeZones.add(candidate);
+        for (int i = reachable - 1; i >= 0 && placed < safeCount; i--) {
+            int cell = byDistance[i];
+            if (grid[cell] == ROAD) {
+                grid[cell] = SAFE_ZONE;
+                placed++;
             }
         }
-        int idx = 0;
-        while (safeZones.size() < safeCount && idx < candidates.size()) {
-            Position fallback = candidates.get(idx++);
-            if (!safeZones.contains(fallback)) {
-                safeZones.add(fallback);
-            }
-        }
-        return safeZones;
     }
 
-    private static boolean isEdgeTile(Position pos, char[][] grid) {
-        return pos.x() <= 1 || pos.y() <= 1 || pos.x() >= grid[0].length - 2 || pos.y() >= grid.length - 2;
+    private static boolean isEdgeTile(int x, int y, int w, int h) {
+        return x <= 1 || y <= 1 || x >= w - 2 || y >= h - 2;
     }
 
-    private static List<Position> selectHouses(char[][] grid, Map<Position, Integer> distances, int count, Random random) {
-        List<Position> candidates = new ArrayList<>();
-        for (Map.Entry<Position, Integer> entry : distances.entrySet()) {
-            Position pos = entry.getKey();
-            char symbol = grid[pos.y()][pos.x()];
-            if (symbol == '.' || symbol == 'R') {
-                candidates.add(pos);
+    /**
+     * Roads nearest the volcano, each skipped with a 25% chance; if that leaves too few, random
+     * reachable roads fill up.
+     */
+    private static void selectHouses(byte[] grid, int[] byDistance, int reachable, int count,
+                                     SplittableRandom random) {
+        int[] candidates = new int[reachable];
+        int candidateCount = 0;
+        for (int i = 0; i < reachable; i++) {
+            if (grid[byDistance[i]] == ROAD) {
+                candidates[candidateCount++] = byDistance[i];
             }
         }
-        candidates.sort(Comparator.comparingInt(distances::get));
-        List<Position> houses = new ArrayList<>();
-        for (Position candidate : candidates) {
-            if (houses.size() >= count) {
-                break;
-            }
-            if (grid[candidate.y()][candidate.x()] == '.' && random.nextDouble() > 0.25) {
-                houses.add(candidate);
+        int placed = 0;
+        for (int i = 0; i < candidateCount && placed < count; i++) {
+            if (random.nextDouble() > 0.25) {
+                grid[candidates[i]] = HOUSE;
+                placed++;
             }
         }
-        int tries = 0;
-        while (houses.size() < count && tries < candidates.size()) {
-            Position backup = candidates.get(random.nextInt(candidates.size()));
-            if (grid[backup.y()][backup.x()] == '.') {
-                houses.add(backup);
+        for (int tries = 0; placed < count && tries < candidateCount; tries++) {
+            int backup = candidates[random.nextInt(candidateCount)];
+            if (grid[backup] == ROAD) {
+                grid[backup] = HOUSE;
+                placed++;
             }
-            tries++;
         }
-        return houses;
     }
 
-    private static int manhattan(Position a, Position b) {
-        return Math.abs(a.x() - b.x()) + Math.abs(a.y() - b.y());
+    private static GameMap toGameMap(byte[] grid, int w, int h, int volcano) {
+        PackedGrid packed = new PackedGrid(w, h);
+        List<Position> houses = new ArrayList<>();
+        List<Position> safeZones = new ArrayList<>();
+        for (int cell = 0; cell < grid.length; cell++) {
+            packed.setType(cell, TYPES[grid[cell]]);
+            if (grid[cell] == HOUSE) {
+                houses.add(new Position(cell % w, cell / w));
+            } else if (grid[cell] == SAFE_ZONE) {
+                safeZones.add(new Position(cell % w, cell / w));
+            }
+        }
+        packed.compact();
+        return new GameMap(packed, houses, safeZones, new Position(volcano % w, volcano / w));
     }
 }
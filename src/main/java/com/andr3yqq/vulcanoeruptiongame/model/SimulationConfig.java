@@ -1,5 +1,6 @@
 package com.andr3yqq.vulcanoeruptiongame.model;
 
+import com.andr3yqq.vulcanoeruptiongame.pathfinding.PathStrategy;
 import lombok.Getter;
 
 @Getter
@@ -8,12 +9,28 @@ public class SimulationConfig {
     private final int barricadeActions;
     private final int openRoadActions;
     private final int lavaSpreadInterval;
+    private final PathStrategy pathStrategy;
 
     public SimulationConfig(GameMap map, int barricadeActions, int openRoadActions, int lavaSpreadInterval) {
+        this(map, barricadeActions, openRoadActions, lavaSpreadInterval, PathStrategy.FLOW_FIELD);
+    }
+
+    public SimulationConfig(GameMap map, int barricadeActions, int openRoadActions, int lavaSpreadInterval,
+                            PathStrategy pathStrategy) {
         this.map = map;
         this.barricadeActions = barricadeActions;
         this.openRoadActions = openRoadActions;
         this.lavaSpreadInterval = lavaSpreadInterval;
+        this.pathStrategy = pathStrategy;
+    }
+
+    /**
+     * Same game with citizens routed by {@code strategy}. Ties between equally short paths may
+     * break differently, and hierarchical paths may be longer, so outcomes can differ from the
+     * default.
+     */
+    public SimulationConfig withPathStrategy(PathStrategy strategy) {
+        return new SimulationConfig(map, barricadeActions, openRoadActions, lavaSpreadInterval, strategy);
     }
 
     public static SimulationConfig defaultConfig() {
@@ -3,16 +3,23 @@ package com.andr3yqq.vulcanoeruptiongame.model;
 import lombok.Getter;
 import lombok.Setter;
 
-import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.BitSet;
 import java.util.List;
-import java.util.Set;
 
 @Getter
 public class SimulationState {
     private final SimulationConfig config;
-    private final List<Citizen> citizens;
-    private final Set<Position> lavaCells = new HashSet<>();
+    private final CitizenStore citizens;
+    /**
+     * Cell indices of lava tiles that can still spread. Cells enclosed by lava, walls or the
+     * volcano are retired, so the set tracks the lava perimeter rather than its area.
+     */
+    private final BitSet lavaFrontier;
+    private final CitizenScheduler scheduler;
+    /**
+     * This run's lava, barricades and opened roads over the shared layout in {@link #config}.
+     */
+    private final MapOverlay overlay;
 
     private int tick;
     private int barricadeActionsLeft;
@@ -22,29 +29,66 @@ public class SimulationState {
     @Setter
     private SimulationOutcome outcome = SimulationOutcome.RUNNING;
 
-    private SimulationState(SimulationConfig config, List<Citizen> citizens) {
+    /**
+     * Schedules the citizens still evacuating; progress counters start from the config and are
+     * set through {@link #restoreProgress} when resuming a fork or keyframe.
+     */
+    SimulationState(SimulationConfig config, CitizenStore citizens, MapOverlay overlay, BitSet lavaFrontier) {
+        this(config, citizens, new CitizenScheduler(citizens), overlay, lavaFrontier);
+    }
+
+    private SimulationState(SimulationConfig config, CitizenStore citizens, CitizenScheduler scheduler,
+                            MapOverlay overlay, BitSet lavaFrontier) {
         this.config = config;
         this.citizens = citizens;
+        this.scheduler = scheduler;
+        this.overlay = overlay;
+        this.lavaFrontier = lavaFrontier;
         this.barricadeActionsLeft = config.getBarricadeActions();
         this.openRoadActionsLeft = config.getOpenRoadActions();
-        Position volcano = config.getMap().getVolcanoSource();
-        lavaCells.add(volcano);
-        config.getMap().getTile(volcano).setLava(true);
+    }
+
+    void restoreProgress(int tick, int barricadeActionsLeft, int openRoadActionsLeft, int savedCount,
+                         int lostCount, SimulationOutcome outcome) {
+        this.tick = tick;
+        this.barricadeActionsLeft = barricadeActionsLeft;
+        this.openRoadActionsLeft = openRoadActionsLeft;
+        this.savedCount = savedCount;
+        this.lostCount = lostCount;
+        this.outcome = outcome;
     }
 
     public static SimulationState bootstrap(SimulationConfig config) {
         List<Position> housePositions = config.getMap().getHouses();
-        List<Citizen> citizens = new ArrayList<>();
+        CitizenStore citizens = new CitizenStore(config.getMap(), housePositions.size());
         int count = 0;
         Position volcano = config.getMap().getVolcanoSource();
         for (Position house : housePositions) {
             CitizenType type = (count % 2 == 0) ? CitizenType.SLOW : CitizenType.FAST;
             int manhattan = Math.abs(house.x() - volcano.x()) + Math.abs(house.y() - volcano.y());
             int priority = manhattan <= 3 ? 3 : manhattan <= 6 ? 2 : 1;
-            citizens.add(new Citizen(count, type, priority, house));
+            citizens.add(count, type, priority, config.getMap().indexOf(house));
             count++;
         }
-        return new SimulationState(config, citizens);
+        MapOverlay overlay = new MapOverlay(config.getMap());
+        BitSet lavaFrontier = new BitSet();
+        int vent = config.getMap().indexOf(volcano);
+        lavaFrontier.set(vent);
+        overlay.setLava(vent, true);
+        return new SimulationState(config, citizens, overlay, lavaFrontier);
+    }
+
+    /**
+     * Independent branch of this state. The layout, lava pages and citizen paths are shared
+     * copy-on-write; the citizen arrays are copied flat. Call from the thread that owns this
+     * state.
+     */
+    public SimulationState fork() {
+        CitizenStore copies = citizens.fork();
+        SimulationState copy = new SimulationState(config, copies, scheduler.fork(copies), overlay.fork(),
+                (BitSet) lavaFrontier.clone());
+        copy.restoreProgress(tick, barricadeActionsLeft, openRoadActionsLeft, savedCount, lostCount, outcome);
+        return copy;
     }
 
     public void incrementTick() {
@@ -63,16 +107,18 @@ public class SimulationState {
         }
     }
 
-    public void markCitizenSafe(Citizen citizen) {
-        if (!citizen.isSafe()) {
-            citizen.markSafe();
+    public void markCitizenSafe(int slot) {
+        if (citizens.isActive(slot)) {
+            scheduler.resolved();
+            citizens.markSafe(slot);
             savedCount++;
         }
     }
 
-    public void markCitizenDead(Citizen citizen) {
-        if (citizen.isAlive()) {
-            citizen.kill();
+    public void markCitizenDead(int slot) {
+        if (citizens.isActive(slot)) {
+            scheduler.resolved();
+            citizens.markDead(slot);
             lostCount++;
         }
     }
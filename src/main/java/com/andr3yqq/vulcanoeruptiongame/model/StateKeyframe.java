@@ -0,0 +1,140 @@
+package com.andr3yqq.vulcanoeruptiongame.model;
+
+import lombok.Getter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.BitSet;
+
+/**
+ * Serialized {@link SimulationState} at the end of a tick, as stored in replay logs. Restoring
+ * needs the {@link SimulationConfig} the state was captured with; everything dynamic, including
+ * the citizens' planned paths, is in the keyframe. Paths are stored as two-bit step directions.
+ * The distance field and the store's cell and path indexes are derived data, rebuilt on restore.
+ */
+public final class StateKeyframe {
+    private static final CitizenType[] CITIZEN_TYPES = CitizenType.values();
+    private static final SimulationOutcome[] OUTCOMES = SimulationOutcome.values();
+    private static final int ALIVE = 1;
+    private static final int SAFE = 2;
+
+    @Getter
+    private final int tick;
+    private final byte[] data;
+
+    private StateKeyframe(int tick, byte[] data) {
+        this.tick = tick;
+        this.data = data;
+    }
+
+    public static StateKeyframe capture(SimulationState state) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            VarInts.write(out, state.getTick());
+            VarInts.write(out, state.getBarricadeActionsLeft());
+            VarInts.write(out, state.getOpenRoadActionsLeft());
+            VarInts.write(out, state.getSavedCount());
+            VarInts.write(out, state.getLostCount());
+            out.writeByte(state.getOutcome().ordinal());
+            state.getOverlay().writeTo(out);
+            VarInts.writeCells(out, state.getLavaFrontier());
+            CitizenStore citizens = state.getCitizens();
+            VarInts.write(out, citizens.size());
+            for (int slot = 0; slot < citizens.size(); slot++) {
+                writeCitizen(out, citizens, slot);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return new StateKeyframe(state.getTick(), bytes.toByteArray());
+    }
+
+    public SimulationState restore(SimulationConfig config) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            int restoredTick = VarInts.read(in);
+            int barricadeActionsLeft = VarInts.read(in);
+            int openRoadActionsLeft = VarInts.read(in);
+            int savedCount = VarInts.read(in);
+            int lostCount = VarInts.read(in);
+            SimulationOutcome outcome = OUTCOMES[in.readUnsignedByte()];
+            MapOverlay overlay = MapOverlay.readFrom(config.getMap(), in);
+            BitSet lavaFrontier = VarInts.readCells(in);
+            int count = VarInts.read(in);
+            CitizenStore citizens = new CitizenStore(config.getMap(), count);
+            for (int i = 0; i < count; i++) {
+                readCitizen(in, config.getMap(), citizens);
+            }
+            SimulationState state = new SimulationState(config, citizens, overlay, lavaFrontier);
+            state.restoreProgress(restoredTick, barricadeActionsLeft, openRoadActionsLeft, savedCount, lostCount,
+                    outcome);
+            return state;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Corrupt keyframe at tick " + tick, ex);
+        }
+    }
+
+    /**
+     * Encoded size in bytes.
+     */
+    public int size() {
+        return data.length;
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        VarInts.write(out, tick);
+        VarInts.write(out, data.length);
+        out.write(data);
+    }
+
+    public static StateKeyframe readFrom(DataInput in) throws IOException {
+        int tick = VarInts.read(in);
+        byte[] data = new byte[VarInts.read(in)];
+        in.readFully(data);
+        return new StateKeyframe(tick, data);
+    }
+
+    private static void writeCitizen(DataOutput out, CitizenStore citizens, int slot) throws IOException {
+        VarInts.write(out, citizens.getId(slot));
+        out.writeByte(citizens.getType(slot).ordinal());
+        VarInts.write(out, citizens.getPriority(slot));
+        out.writeByte((citizens.isAlive(slot) ? ALIVE : 0) | (citizens.isSafe(slot) ? SAFE : 0));
+        Position position = citizens.getPosition(slot);
+        VarInts.write(out, position.x());
+        VarInts.write(out, position.y());
+        // Resolved citizens never walk again, so their leftover plan is not worth storing.
+        int length = citizens.isActive(slot) ? citizens.remainingSteps(slot) : 0;
+        VarInts.write(out, length);
+        int packed = 0;
+        for (int i = 0; i < length; i++) {
+            packed |= citizens.stepDirection(slot, i) << ((i & 3) * 2);
+            if ((i & 3) == 3 || i == length - 1) {
+                out.writeByte(packed);
+                packed = 0;
+            }
+        }
+    }
+
+    private static void readCitizen(DataInput in, GameMap map, CitizenStore citizens) throws IOException {
+        int id = VarInts.read(in);
+        CitizenType type = CITIZEN_TYPES[in.readUnsignedByte()];
+        int priority = VarInts.read(in);
+        int flags = in.readUnsignedByte();
+        Position position = new Position(VarInts.read(in), VarInts.read(in));
+        int slot = citizens.add(id, type, priority, map.indexOf(position));
+        if ((flags & ALIVE) == 0) {
+            citizens.markDead(slot);
+        } else if ((flags & SAFE) != 0) {
+            citizens.markSafe(slot);
+        }
+        int length = VarInts.read(in);
+        byte[] packed = new byte[(length + 3) >> 2];
+        in.readFully(packed);
+        citizens.setPath(slot, packed, length);
+    }
+}
@@ -0,0 +1,284 @@
+package com.andr3yqq.vulcanoeruptiongame.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Procedural maps produced one row at a time with Eller's algorithm, so memory is a few arrays
+ * of one row whatever the height; the only limit is where the rows go, e.g. to disk through
+ * {@link MapFile#writeProcedural}. Mazes are perfect before the same 12% of extra passages as
+ * {@link RandomMapGenerator} are opened. Without a whole map to search, placement is positional
+ * instead of by distance from the volcano: the volcano sits at the centre, safe zones are spread
+ * along the top and bottom maze rows, and houses are an exact-count uniform sample of the other
+ * maze cells.
+ */
+public final class StreamingMazeGenerator {
+
+    private static final byte ROAD = (byte) TileType.ROAD.ordinal();
+    private static final byte HOUSE = (byte) TileType.HOUSE.ordinal();
+    private static final byte SAFE_ZONE = (byte) TileType.SAFE_ZONE.ordinal();
+    private static final byte VOLCANO = (byte) TileType.VOLCANO.ordinal();
+    private static final byte WALL = (byte) TileType.WALL.ordinal();
+    private static final double EXTRA_PASSAGE_CHANCE = 0.12;
+
+    /**
+     * Receives the map top to bottom, one {@link TileType} ordinal per cell. The array is reused
+     * for the next row, so it must be consumed or copied before returning.
+     */
+    @FunctionalInterface
+    public interface RowSink {
+        void accept(int y, byte[] row);
+    }
+
+    private final int width;
+    private final int height;
+    /**
+     * Maze cells per row and rows of maze cells; maze cell (i, r) is tile (2i + 1, 2r + 1).
+     */
+    private final int columns;
+    private final int mazeRows;
+    private final SplittableRandom random;
+    private final int volcanoColumn;
+    private final int volcanoRow;
+    private final int[] topSafeZones;
+    private final int[] bottomSafeZones;
+    private long housesLeft;
+    private long candidatesLeft;
+
+    // Eller state: the set of every maze cell in the current row, as labels in [0, columns).
+    private final int[] sets;
+    private final int[] parents;
+    private final boolean[] joinedRight;
+    private final boolean[] carvedDown;
+    private final boolean[] setCarvedDown;
+    private final int[] lastInSet;
+    private final boolean[] labelInUse;
+    private final int[] freeLabels;
+
+    private StreamingMazeGenerator(int width, int height, long houseCount, int safeZoneCount, long seed) {
+        this.width = Math.max(15, width | 1); // odd dimensions, as in RandomMapGenerator
+        this.height = Math.max(15, height | 1);
+        this.columns = (this.width - 1) / 2;
+        this.mazeRows = (this.height - 1) / 2;
+        this.random = new SplittableRandom(seed);
+        this.volcanoColumn = columns / 2;
+        this.volcanoRow = mazeRows / 2;
+        this.topSafeZones = spread((safeZoneCount + 1) / 2, columns);
+        this.bottomSafeZones = spread(safeZoneCount / 2, columns);
+        this.candidatesLeft = (long) columns * mazeRows - 1 - topSafeZones.length - bottomSafeZones.length;
+        this.housesLeft = Math.max(0, Math.min(houseCount, candidatesLeft));
+        this.sets = new int[columns];
+        this.parents = new int[columns];
+        this.joinedRight = new boolean[columns];
+        this.carvedDown = new boolean[columns];
+        this.setCarvedDown = new boolean[columns];
+        this.lastInSet = new int[columns];
+        this.labelInUse = new boolean[columns];
+        this.freeLabels = new int[columns];
+        for (int i = 0; i < columns; i++) {
+            sets[i] = i;
+        }
+    }
+
+    /**
+     * Streams a map of at least 15x15 cells (dimensions are rounded up to odd) into {@code sink}.
+     */
+    public static void generate(int width, int height, long houseCount, int safeZoneCount, long seed, RowSink sink) {
+        new StreamingMazeGenerator(width, height, houseCount, safeZoneCount, seed).run(sink);
+    }
+
+    /**
+     * Same map as {@link #generate(int, int, long, int, long, RowSink)}, written straight into a
+     * {@link PackedGrid}; needs the map to fit in one.
+     */
+    public static GameMap generate(int width, int height, int houseCount, int safeZoneCount, long seed) {
+        int w = Math.max(15, width | 1);
+        int h = Math.max(15, height | 1);
+        if ((long) w * h > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Map too large for a PackedGrid: " + w + "x" + h);
+        }
+        PackedGrid grid = new PackedGrid(w, h);
+        CellStore store = grid.getStore();
+        List<Position> houses = new ArrayList<>();
+        List<Position> safeZones = new ArrayList<>();
+        Position[] volcano = new Position[1];
+        generate(w, h, houseCount, safeZoneCount, seed, (y, row) -> {
+            int base = y * w;
+            for (int x = 0; x < w; x++) {
+                byte type = row[x];
+                if (type == ROAD) {
+                    continue; // stores start out as zeros, i.e. roads
+                }
+                store.set(base + x, type);
+                if (type == HOUSE) {
+                    houses.add(new Position(x, y));
+                } else if (type == SAFE_ZONE) {
+                    safeZones.add(new Position(x, y));
+                } else if (type == VOLCANO) {
+                    volcano[0] = new Position(x, y);
+                }
+            }
+        });
+        grid.compact();
+        return new GameMap(grid, houses, safeZones, volcano[0]);
+    }
+
+    private void run(RowSink sink) {
+        byte[] cellRow = new byte[width];
+        byte[] wallRow = new byte[width];
+        Arrays.fill(wallRow, WALL);
+        sink.accept(0, wallRow);
+        for (int r = 0; r < mazeRows; r++) {
+            boolean last = r == mazeRows - 1;
+            joinRow(last);
+            if (!last) {
+                carveDown();
+            }
+
+            Arrays.fill(cellRow, WALL);
+            for (int i = 0; i < columns; i++) {
+                cellRow[2 * i + 1] = ROAD;
+                if (joinedRight[i]) {
+                    cellRow[2 * i + 2] = ROAD;
+                }
+            }
+            openExtraPassages(cellRow);
+            placeSpecials(cellRow, r);
+            sink.accept(2 * r + 1, cellRow);
+
+            Arrays.fill(wallRow, WALL);
+            if (!last) {
+                for (int i = 0; i < columns; i++) {
+                    if (carvedDown[i]) {
+                        wallRow[2 * i + 1] = ROAD;
+                    }
+                }
+                openExtraPassages(wallRow);
+                sink.accept(2 * r + 2, wallRow);
+                relabel();
+            }
+        }
+        Arrays.fill(wallRow, WALL);
+        sink.accept(height - 1, wallRow);
+    }
+
+    /**
+     * Randomly merges neighbouring cells of different sets; the last row merges all of them, which
+     * connects the whole maze.
+     */
+    private void joinRow(boolean last) {
+        for (int i = 0; i < columns; i++) {
+            parents[i] = i;
+        }
+        for (int i = 0; i + 1 < columns; i++) {
+            int left = find(sets[i]);
+            int right = find(sets[i + 1]);
+            joinedRight[i] = left != right && (last || random.nextBoolean());
+            if (joinedRight[i]) {
+                parents[right] = left;
+            }
+        }
+        joinedRight[columns - 1] = false;
+        for (int i = 0; i < columns; i++) {
+            sets[i] = find(sets[i]);
+        }
+    }
+
+    /**
+     * Opens passages down at random, then at least once more for every set that got none, so no
+     * set is cut off from the rows below.
+     */
+    private void carveDown() {
+        for (int i = 0; i < columns; i++) {
+            setCarvedDown[sets[i]] = false;
+        }
+        for (int i = 0; i < columns; i++) {
+            carvedDown[i] = random.nextBoolean();
+            setCarvedDown[sets[i]] |= carvedDown[i];
+            lastInSet[sets[i]] = i;
+        }
+        for (int i = 0; i < columns; i++) {
+            if (!setCarvedDown[sets[i]] && lastInSet[sets[i]] == i) {
+                carvedDown[i] = true;
+            }
+        }
+    }
+
+    /**
+     * Cells below a downward passage keep their set; the others start new ones from the labels no
+     * longer in use.
+     */
+    private void relabel() {
+        Arrays.fill(labelInUse, false);
+        for (int i = 0; i < columns; i++) {
+            if (carvedDown[i]) {
+                labelInUse[sets[i]] = true;
+            }
+        }
+        int free = 0;
+        for (int label = 0; label < columns; label++) {
+            if (!labelInUse[label]) {
+                freeLabels[free++] = label;
+            }
+        }
+        for (int i = 0; i < columns; i++) {
+            if (!carvedDown[i]) {
+                sets[i] = freeLabels[--free];
+            }
+        }
+    }
+
+    private int find(int label) {
+        while (parents[label] != label) {
+            parents[label] = parents[parents[label]];
+            label = parents[label];
+        }
+        return label;
+    }
+
+    private void openExtraPassages(byte[] row) {
+        for (int x = 1; x < width - 1; x++) {
+            if (row[x] == WALL && random.nextDouble() < EXTRA_PASSAGE_CHANCE) {
+                row[x] = ROAD;
+            }
+        }
+    }
+
+    /**
+     * Volcano and safe zones at their fixed cells; houses by selection sampling, which picks
+     * exactly the requested number from the candidates in one pass.
+     */
+    private void placeSpecials(byte[] row, int r) {
+        if (r == 0 || r == mazeRows - 1) {
+            for (int i : r == 0 ? topSafeZones : bottomSafeZones) {
+                row[2 * i + 1] = SAFE_ZONE;
+            }
+        }
+        if (r == volcanoRow) {
+            row[2 * volcanoColumn + 1] = VOLCANO;
+        }
+        for (int i = 0; i < columns && housesLeft > 0; i++) {
+            if (row[2 * i + 1] != ROAD) {
+                continue;
+            }
+            if (random.nextLong(candidatesLeft) < housesLeft) {
+                row[2 * i + 1] = HOUSE;
+                housesLeft--;
+            }
+            candidatesLeft--;
+        }
+    }
+
+    /**
+     * {@code count} distinct maze columns, evenly spaced.
+     */
+    private static int[] spread(int count, int columns) {
+        int[] spread = new int[Math.min(count, columns)];
+        for (int j = 0; j < spread.length; j++) {
+            spread[j] = (int) ((2L * j + 1) * columns / (2L * spread.length));
+        }
+        return spread;
+    }
+}
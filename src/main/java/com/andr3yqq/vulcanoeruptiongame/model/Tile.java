@@ -1,34 +1,51 @@
 package com.andr3yqq.vulcanoeruptiongame.model;
 
-import lombok.Getter;
-import lombok.Setter;
-
 /**
- * Represents a cell on the grid. Houses and safe zones are traversable, walls are not.
+ * View of one cell of a {@link MapOverlay}. Houses and safe zones are traversable, walls are not.
+ * Writes go to the overlay; the shared layout is never touched.
  */
-@Getter
-@Setter
 public class Tile {
-    private TileType type;
-    private boolean barricaded;
-    private boolean lava;
+    private final MapOverlay overlay;
+    private final int index;
+
+    Tile(MapOverlay overlay, int index) {
+        this.overlay = overlay;
+        this.index = index;
+    }
+
+    public TileType getType() {
+        return overlay.getType(index);
+    }
+
+    /**
+     * Only walls can be opened into roads; the layout type is otherwise fixed.
+     */
+    public void openRoad() {
+        overlay.openRoad(index);
+    }
+
+    public boolean isBarricaded() {
+        return overlay.isBarricaded(index);
+    }
+
+    public void setBarricaded(boolean barricaded) {
+        overlay.setBarricaded(index, barricaded);
+    }
+
+    public boolean isLava() {
+        return overlay.hasLava(index);
+    }
 
-    public Tile(TileType type) {
-        this.type = type;
+    public void setLava(boolean lava) {
+        overlay.setLava(index, lava);
     }
 
     public boolean isTraversable() {
-        if (lava) {
-            return false;
-        }
-        return switch (type) {
-            case ROAD, HOUSE, SAFE_ZONE -> !barricaded;
-            case VOLCANO, WALL -> false;
-        };
+        return overlay.isTraversable(index);
     }
 
     public boolean hasLava() {
-        return lava;
+        return overlay.hasLava(index);
     }
 
 }
@@ -0,0 +1,62 @@
+package com.andr3yqq.vulcanoeruptiongame.model;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.BitSet;
+
+/**
+ * LEB128-style variable-length ints for the replay format: seven bits per byte, so the small
+ * counts, deltas and coordinates that dominate a log take one or two bytes each.
+ */
+public final class VarInts {
+
+    private VarInts() {
+    }
+
+    public static void write(DataOutput out, int value) throws IOException {
+        if (value < 0) {
+            throw new IllegalArgumentException("Negative value: " + value);
+        }
+        while (value >= 0x80) {
+            out.writeByte(value & 0x7F | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    public static int read(DataInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if (b < 0x80) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    /**
+     * Set bits as a count followed by gaps between consecutive indices.
+     */
+    public static void writeCells(DataOutput out, BitSet cells) throws IOException {
+        write(out, cells.cardinality());
+        int previous = 0;
+        for (int cell = cells.nextSetBit(0); cell >= 0; cell = cells.nextSetBit(cell + 1)) {
+            write(out, cell - previous);
+            previous = cell;
+        }
+    }
+
+    public static BitSet readCells(DataInput in) throws IOException {
+        BitSet cells = new BitSet();
+        int count = read(in);
+        int cell = 0;
+        for (int i = 0; i < count; i++) {
+            cell += read(in);
+            cells.set(cell);
+        }
+        return cells;
+    }
+}
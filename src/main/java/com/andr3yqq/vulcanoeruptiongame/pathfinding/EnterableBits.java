@@ -0,0 +1,74 @@
+package com.andr3yqq.vulcanoeruptiongame.pathfinding;
+
+import com.andr3yqq.vulcanoeruptiongame.model.GameMap;
+import com.andr3yqq.vulcanoeruptiongame.model.MapOverlay;
+import com.andr3yqq.vulcanoeruptiongame.model.TileType;
+
+/**
+ * Which cells a path may step onto, read 64 consecutive cells at a time: roads, houses and opened
+ * walls without lava or barricades, plus every safe zone. The layout part is computed once and
+ * shared by forks; the run's changes are read straight from the overlay, so nothing goes stale.
+ */
+final class EnterableBits {
+    private final MapOverlay overlay;
+    /**
+     * Cells whose layout type can be walked on, and safe zones; one spare word past the end so
+     * windows near the last cell need no bounds check.
+     */
+    private final long[] walkable;
+    private final long[] safeZones;
+
+    EnterableBits(MapOverlay overlay) {
+        GameMap map = overlay.getLayout();
+        int cells = map.getWidth() * map.getHeight();
+        this.overlay = overlay;
+        this.walkable = new long[(cells >> 6) + 2];
+        this.safeZones = new long[walkable.length];
+        for (int cell = 0; cell < cells; cell++) {
+            TileType type = map.getType(cell);
+            if (type == TileType.ROAD || type == TileType.HOUSE || type == TileType.SAFE_ZONE) {
+                walkable[cell >> 6] |= 1L << cell;
+            }
+            if (type == TileType.SAFE_ZONE) {
+                safeZones[cell >> 6] |= 1L << cell;
+            }
+        }
+    }
+
+    private EnterableBits(MapOverlay overlay, EnterableBits source) {
+        this.overlay = overlay;
+        this.walkable = source.walkable;
+        this.safeZones = source.safeZones;
+    }
+
+    EnterableBits fork(MapOverlay forkedOverlay) {
+        return new EnterableBits(forkedOverlay, this);
+    }
+
+    boolean get(int cell) {
+        return (word(cell >> 6) & (1L << cell)) != 0;
+    }
+
+    /**
+     * Cells {@code cell} to {@code cell + 63}, lowest cell in the lowest bit. The caller masks off
+     * cells past the end of its row.
+     */
+    long window(int cell) {
+        int shift = cell & 63;
+        long low = word(cell >> 6) >>> shift;
+        return shift == 0 ? low : low | word((cell >> 6) + 1) << (64 - shift);
+    }
+
+    /**
+     * Safe zones among cells {@code cell} to {@code cell + 63}, as in {@link #window(int)}.
+     */
+    long safeZoneWindow(int cell) {
+        int shift = cell & 63;
+        long low = safeZones[cell >> 6] >>> shift;
+        return shift == 0 ? low : low | safeZones[(cell >> 6) + 1] << (64 - shift);
+    }
+
+    private long word(int word) {
+        return safeZones[word] | (walkable[word] | overlay.openedRoadWord(word)) & ~overlay.blockedWord(word);
+    }
+}
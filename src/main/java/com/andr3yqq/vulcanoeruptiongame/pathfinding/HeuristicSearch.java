@@ -0,0 +1,89 @@
+package com.andr3yqq.vulcanoeruptiongame.pathfinding;
+
+import com.andr3yqq.vulcanoeruptiongame.model.GameMap;
+import com.andr3yqq.vulcanoeruptiongame.model.MapOverlay;
+import lombok.Getter;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Best-first search from one citizen towards the nearest safe zone, guided by
+ * {@link SafeZoneHeuristic}. Subclasses decide which cells follow an expanded one. Nothing is
+ * cached between searches, so there is nothing to invalidate and queries are always thread-safe.
+ */
+abstract class HeuristicSearch implements SafeZonePathfinder {
+    @Getter
+    protected final MapOverlay overlay;
+    protected final GameMap map;
+    protected final int width;
+    protected final int height;
+    private final SafeZoneHeuristic heuristic;
+    private final LongAdder expansions = new LongAdder();
+
+    protected HeuristicSearch(MapOverlay overlay, SafeZoneHeuristic heuristic) {
+        this.overlay = overlay;
+        this.map = overlay.getLayout();
+        this.width = map.getWidth();
+        this.height = map.getHeight();
+        this.heuristic = heuristic;
+    }
+
+    protected SafeZoneHeuristic heuristic() {
+        return heuristic;
+    }
+
+    @Override
+    public byte[] directionsToSafeZone(int from) {
+        if (map.getSafeZones().isEmpty()) {
+            return null;
+        }
+        SearchScratch search = SearchScratch.acquire(width * height);
+        search.offer(from, 0, -1, heuristic.estimate(from));
+        long expanded = 0;
+        try {
+            for (int cell = search.poll(); cell >= 0; cell = search.poll()) {
+                expanded++;
+                // The start is never its own goal, as in MapOverlay#shortestPathToSafeZone.
+                if (cell != from && map.isSafeZone(cell)) {
+                    return search.trace(cell, width);
+                }
+                expand(search, cell);
+            }
+            return null;
+        } finally {
+            expansions.add(expanded);
+        }
+    }
+
+    /**
+     * Offers the successors of {@code cell}, which was just taken off the heap.
+     */
+    protected abstract void expand(SearchScratch search, int cell);
+
+    protected void reach(SearchScratch search, int cell, int parent, int cost) {
+        search.offer(cell, cost, parent, heuristic.estimate(cell));
+    }
+
+    /**
+     * Whether a path may step onto {@code cell}: traversable now, or a safe zone, which is always
+     * entered.
+     */
+    protected boolean isEnterable(int cell) {
+        return overlay.isTraversable(cell) || map.isSafeZone(cell);
+    }
+
+    @Override
+    public void invalidate() {
+        // Nothing is cached.
+    }
+
+    @Override
+    public void ensureFresh() {
+        // Nothing is cached.
+    }
+
+    @Override
+    public long getExpansions() {
+        return expansions.sum();
+    }
+}
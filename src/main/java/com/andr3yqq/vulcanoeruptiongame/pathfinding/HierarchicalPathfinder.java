@@ -0,0 +1,609 @@
+package com.andr3yqq.vulcanoeruptiongame.pathfinding;
+
+import com.andr3yqq.vulcanoeruptiongame.model.GameMap;
+import com.andr3yqq.vulcanoeruptiongame.model.MapOverlay;
+import com.andr3yqq.vulcanoeruptiongame.model.Position;
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hierarchical pathfinding after HPA*. The map is cut into
+ * {@value #CLUSTER_SIZE}x{@value #CLUSTER_SIZE} clusters. Where two clusters touch, every run of
+ * open cell pairs across the border becomes one entrance, at the middle of the run; a cell next
+ * to a safe zone across a border is an entrance of its own, and safe zones are entrances of their
+ * cluster. Each cluster stores the distances inside it between its entrances. Entrances, these
+ * distances and the single steps across borders form the abstract graph: a handful of nodes per
+ * cluster, searched once from all safe zones for each entrance's distance to safety and next hop.
+ * A query searches only the start's own cluster, picks the best entrance, and follows next hops to
+ * a safe zone, expanding each hop into steps with one search of its cluster. Because crossings go
+ * through the middle of their run, paths can be a few steps longer than the shortest.
+ *
+ * <p>A changed cell drops its cluster, and the neighbouring cluster when the cell lies on their
+ * border. Before the next query the dropped clusters are rebuilt, and only entrances whose next
+ * hops led through them are searched again, from their surviving neighbours outward.
+ */
+public class HierarchicalPathfinder implements SafeZonePathfinder {
+    static final int CLUSTER_SIZE = 16;
+    private static final int CLUSTER_SHIFT = 4;
+    private static final int UNREACHABLE = Integer.MAX_VALUE;
+    private static final short NONE = -1;
+
+    @Getter
+    private final MapOverlay overlay;
+    private final GameMap map;
+    private final int width;
+    private final int height;
+    private final int clusterColumns;
+    private final Cluster[] clusters;
+    /**
+     * Clusters dropped by a change and not rebuilt yet; they still hold their old entrances.
+     */
+    private final BitSet stale;
+    /**
+     * Abstract distance from each entrance to the nearest safe zone; {@link #UNREACHABLE}
+     * elsewhere.
+     */
+    private int[] exits;
+    /**
+     * Entrance one abstract edge closer to safety than each entrance, or -1.
+     */
+    private int[] hops;
+    /**
+     * False until the first query, and again after {@link #invalidate()}.
+     */
+    private boolean built;
+    /**
+     * Set while {@link #exits} and {@link #hops} are also read by a fork; the next repair copies
+     * them first.
+     */
+    private boolean shared;
+    private final LongAdder expansions = new LongAdder();
+
+    public HierarchicalPathfinder(MapOverlay overlay) {
+        this(overlay, null);
+    }
+
+    private HierarchicalPathfinder(MapOverlay overlay, HierarchicalPathfinder source) {
+        this.overlay = overlay;
+        this.map = overlay.getLayout();
+        this.width = map.getWidth();
+        this.height = map.getHeight();
+        this.clusterColumns = (width + CLUSTER_SIZE - 1) >> CLUSTER_SHIFT;
+        int clusterRows = (height + CLUSTER_SIZE - 1) >> CLUSTER_SHIFT;
+        if (source == null) {
+            this.clusters = new Cluster[clusterColumns * clusterRows];
+            this.stale = new BitSet(clusters.length);
+        } else {
+            this.clusters = source.clusters.clone();
+            this.stale = (BitSet) source.stale.clone();
+            this.exits = source.exits;
+            this.hops = source.hops;
+            this.built = source.built;
+            this.shared = true;
+        }
+    }
+
+    /**
+     * Shares every cluster and the abstract distances; each side rebuilds only what it changes.
+     */
+    @Override
+    public HierarchicalPathfinder fork(MapOverlay forkedOverlay) {
+        shared = true;
+        return new HierarchicalPathfinder(forkedOverlay, this);
+    }
+
+    @Override
+    public void invalidate() {
+        built = false;
+        stale.clear();
+    }
+
+    @Override
+    public void invalidate(BitSet changedCells) {
+        for (int cell = changedCells.nextSetBit(0); cell >= 0; cell = changedCells.nextSetBit(cell + 1)) {
+            int id = clusterOf(cell);
+            stale.set(id);
+            // Entrances on a border depend on the cells on both sides of it.
+            int lx = cell % width & (CLUSTER_SIZE - 1);
+            int ly = cell / width & (CLUSTER_SIZE - 1);
+            if (lx == 0 && cell % width > 0) {
+                stale.set(id - 1);
+            }
+            if (lx == CLUSTER_SIZE - 1 && cell % width < width - 1) {
+                stale.set(id + 1);
+            }
+            if (ly == 0 && cell / width > 0) {
+                stale.set(id - clusterColumns);
+            }
+            if (ly == CLUSTER_SIZE - 1 && cell / width < height - 1) {
+                stale.set(id + clusterColumns);
+            }
+        }
+    }
+
+    /**
+     * Abstract nodes settled by searches and repairs plus abstract hops walked by queries.
+     */
+    @Override
+    public long getExpansions() {
+        return expansions.sum();
+    }
+
+    /**
+     * Number of clusters currently built, i.e. not dropped by a change since the last query.
+     */
+    public int builtClusters() {
+        return built ? clusters.length - stale.cardinality() : 0;
+    }
+
+    /**
+     * Builds everything on first use; afterwards rebuilds dropped clusters and repairs the
+     * abstract distances around them.
+     */
+    @Override
+    public void ensureFresh() {
+        if (!built) {
+            build();
+        } else if (!stale.isEmpty()) {
+            repair();
+        }
+    }
+
+    private void build() {
+        for (int id = 0; id < clusters.length; id++) {
+            clusters[id] = new Cluster(this, id);
+        }
+        exits = new int[width * height];
+        hops = new int[width * height];
+        Arrays.fill(exits, UNREACHABLE);
+        Arrays.fill(hops, -1);
+        shared = false;
+        SearchScratch search = SearchScratch.acquire(width * height);
+        for (Position zone : map.getSafeZones()) {
+            int cell = map.indexOf(zone);
+            exits[cell] = 0;
+            search.offer(cell, 0, -1, 0);
+        }
+        settle(search);
+        stale.clear();
+        built = true;
+    }
+
+    /**
+     * Drops the old entrances of the stale clusters together with every entrance whose next hops
+     * lead through one, rebuilds the clusters, then seeds each dropped or new entrance from its
+     * surviving neighbours and settles outward from there. Entrances not dropped keep their
+     * distances unless a seeded entrance offers a shorter route.
+     */
+    private void repair() {
+        if (shared) {
+            exits = exits.clone();
+            hops = hops.clone();
+            shared = false;
+        }
+        BitSet dropped = new BitSet();
+        int[] queue = new int[64];
+        int tail = 0;
+        for (int id = stale.nextSetBit(0); id >= 0; id = stale.nextSetBit(id + 1)) {
+            for (int node : clusters[id].nodes) {
+                dropped.set(node);
+                queue = append(queue, tail++, node);
+            }
+        }
+        for (int head = 0; head < tail; head++) {
+            int node = queue[head];
+            Cluster cluster = clusters[clusterOf(node)];
+            int to = cluster.indexOf(node);
+            int count = cluster.nodes.length;
+            for (int from = 0; from < count; from++) {
+                int previous = cluster.nodes[from];
+                if (cluster.distances[from * count + to] > 0 && hops[previous] == node && !dropped.get(previous)) {
+                    dropped.set(previous);
+                    queue = append(queue, tail++, previous);
+                }
+            }
+            for (int dir = 0; dir < GameMap.DIRECTIONS; dir++) {
+                int previous = crossingInto(node, dir);
+                if (previous >= 0 && hops[previous] == node && !dropped.get(previous)) {
+                    dropped.set(previous);
+                    queue = append(queue, tail++, previous);
+                }
+            }
+        }
+        for (int cell = dropped.nextSetBit(0); cell >= 0; cell = dropped.nextSetBit(cell + 1)) {
+            exits[cell] = UNREACHABLE;
+            hops[cell] = -1;
+        }
+        for (int id = stale.nextSetBit(0); id >= 0; id = stale.nextSetBit(id + 1)) {
+            clusters[id] = new Cluster(this, id);
+            for (int node : clusters[id].nodes) {
+                dropped.set(node);
+            }
+        }
+        stale.clear();
+
+        SearchScratch search = SearchScratch.acquire(width * height);
+        for (int cell = dropped.nextSetBit(0); cell >= 0; cell = dropped.nextSetBit(cell + 1)) {
+            Cluster cluster = clusters[clusterOf(cell)];
+            int from = cluster.indexOf(cell);
+            if (from < 0) {
+                continue; // no longer an entrance
+            }
+            if (map.isSafeZone(cell)) {
+                exits[cell] = 0;
+                search.offer(cell, 0, -1, 0);
+                continue;
+            }
+            int count = cluster.nodes.length;
+            for (int to = 0; to < count; to++) {
+                int distance = cluster.distances[from * count + to];
+                int next = cluster.nodes[to];
+                if (distance > 0 && exits[next] != UNREACHABLE && exits[next] + distance < exits[cell]) {
+                    exits[cell] = exits[next] + distance;
+                    hops[cell] = next;
+                }
+            }
+            for (int dir = 0; dir < GameMap.DIRECTIONS; dir++) {
+                int next = cluster.crossingFrom(from, dir);
+                if (next >= 0 && exits[next] != UNREACHABLE && exits[next] + 1 < exits[cell]) {
+                    exits[cell] = exits[next] + 1;
+                    hops[cell] = next;
+                }
+            }
+            if (exits[cell] != UNREACHABLE) {
+                search.offer(cell, exits[cell], -1, 0);
+            }
+        }
+        settle(search);
+    }
+
+    private static int[] append(int[] queue, int index, int node) {
+        if (index == queue.length) {
+            queue = Arrays.copyOf(queue, index * 2);
+        }
+        queue[index] = node;
+        return queue;
+    }
+
+    /**
+     * Dijkstra over the abstract graph from the queued entrances, following edges backwards: an
+     * entrance improves through an intra-cluster edge or a crossing step into a settled one.
+     */
+    private void settle(SearchScratch search) {
+        for (int node = search.poll(); node >= 0; node = search.poll()) {
+            expansions.increment();
+            int cost = exits[node];
+            Cluster cluster = clusters[clusterOf(node)];
+            int to = cluster.indexOf(node);
+            int count = cluster.nodes.length;
+            for (int from = 0; from < count; from++) {
+                short distance = cluster.distances[from * count + to];
+                if (distance > 0) {
+                    relax(search, cluster.nodes[from], node, cost + distance);
+                }
+            }
+            for (int dir = 0; dir < GameMap.DIRECTIONS; dir++) {
+                int previous = crossingInto(node, dir);
+                if (previous >= 0) {
+                    relax(search, previous, node, cost + 1);
+                }
+            }
+        }
+    }
+
+    private void relax(SearchScratch search, int node, int hop, int cost) {
+        if (cost < exits[node]) {
+            exits[node] = cost;
+            hops[node] = hop;
+            search.offer(node, cost, -1, 0);
+        }
+    }
+
+    /**
+     * Entrance in the neighbouring cluster towards {@code dir} that steps across onto
+     * {@code node}, or -1.
+     */
+    private int crossingInto(int node, int dir) {
+        int neighbor = neighbor(node % width, node / width, dir);
+        if (neighbor < 0 || clusterOf(neighbor) == clusterOf(node)) {
+            return -1;
+        }
+        Cluster cluster = clusters[clusterOf(neighbor)];
+        int index = cluster.indexOf(neighbor);
+        return index >= 0 && cluster.crossingFrom(index, dir ^ 1) == node ? neighbor : -1;
+    }
+
+    @Override
+    public byte[] directionsToSafeZone(int from) {
+        ensureFresh();
+        Cluster cluster = clusters[clusterOf(from)];
+        short[] local = new short[CLUSTER_SIZE * CLUSTER_SIZE];
+        short[] parents = new short[CLUSTER_SIZE * CLUSTER_SIZE];
+        cluster.search(this, from, local, parents);
+        int first = bestEntrance(cluster, from, local);
+        if (first < 0) {
+            return null;
+        }
+        byte[] directions = new byte[local[cluster.local(first)] + exits[first]];
+        int length = cluster.writeSteps(from, first, parents, directions, 0);
+        // Next hops over the abstract graph until a safe zone.
+        for (int cell = first; hops[cell] >= 0; ) {
+            expansions.increment();
+            int next = hops[cell];
+            Cluster current = clusters[clusterOf(cell)];
+            if (clusterOf(next) == current.id) {
+                current.search(this, cell, local, parents);
+                length = current.writeSteps(cell, next, parents, directions, length);
+            } else {
+                length = write(directions, length, cell, next, width);
+            }
+            cell = next;
+        }
+        return directions;
+    }
+
+    /**
+     * Length of the path {@link #directionsToSafeZone(int)} would return, from one search of the
+     * start's cluster.
+     */
+    @Override
+    public int distanceToSafeZone(int from) {
+        ensureFresh();
+        Cluster cluster = clusters[clusterOf(from)];
+        short[] local = new short[CLUSTER_SIZE * CLUSTER_SIZE];
+        cluster.search(this, from, local, null);
+        int first = bestEntrance(cluster, from, local);
+        return first < 0 ? -1 : local[cluster.local(first)] + exits[first];
+    }
+
+    /**
+     * Entrance of the start's cluster with the shortest total distance, given the start's search
+     * in {@code local}; -1 when no safe zone is reachable.
+     */
+    private int bestEntrance(Cluster cluster, int from, short[] local) {
+        int best = UNREACHABLE;
+        int first = -1;
+        for (int entrance : cluster.nodes) {
+            short distance = local[cluster.local(entrance)];
+            if (distance < 0 || exits[entrance] == UNREACHABLE || entrance == from && map.isSafeZone(from)) {
+                continue;
+            }
+            if (distance + exits[entrance] < best) {
+                best = distance + exits[entrance];
+                first = entrance;
+            }
+        }
+        return first;
+    }
+
+    private static int write(byte[] directions, int length, int from, int to, int width) {
+        directions[length] = SearchScratch.directionOf(Integer.signum(to % width - from % width),
+                Integer.signum(to / width - from / width));
+        return length + 1;
+    }
+
+    private int neighbor(int x, int y, int dir) {
+        int nx = x + Position.dx(dir);
+        int ny = y + Position.dy(dir);
+        return nx < 0 || ny < 0 || nx >= width || ny >= height ? -1 : ny * width + nx;
+    }
+
+    private int clusterOf(int cell) {
+        return ((cell / width) >> CLUSTER_SHIFT) * clusterColumns + ((cell % width) >> CLUSTER_SHIFT);
+    }
+
+    /**
+     * A path may step onto the cell: traversable now, or a safe zone, which is always entered.
+     */
+    private boolean isEnterable(int cell) {
+        return overlay.isTraversable(cell) || map.isSafeZone(cell);
+    }
+
+    /**
+     * A path may step onto the cell and walk on from it.
+     */
+    private boolean isPassable(int cell) {
+        return overlay.isTraversable(cell) && !map.isSafeZone(cell);
+    }
+
+    /**
+     * Entrances of one cluster, their crossings and the distances between them inside the
+     * cluster. Immutable and independent of the pathfinder that built it, so forks and concurrent
+     * queries share it freely.
+     */
+    private static final class Cluster {
+        final int id;
+        final int width;
+        final int originX;
+        final int originY;
+        final int clusterWidth;
+        final int clusterHeight;
+        /**
+         * Entrance cells in ascending order.
+         */
+        final int[] nodes;
+        /**
+         * Per entrance, a bit for each direction in which it steps across into another cluster's
+         * entrance.
+         */
+        final byte[] crossings;
+        /**
+         * Steps from entrance i to entrance j at {@code i * nodes.length + j}; {@link #NONE} when
+         * unreachable inside the cluster, or when i is a safe zone, since paths end there.
+         */
+        final short[] distances;
+
+        Cluster(HierarchicalPathfinder owner, int id) {
+            this.id = id;
+            this.width = owner.width;
+            int height = owner.height;
+            this.originX = (id % owner.clusterColumns) << CLUSTER_SHIFT;
+            this.originY = (id / owner.clusterColumns) << CLUSTER_SHIFT;
+            this.clusterWidth = Math.min(CLUSTER_SIZE, width - originX);
+            this.clusterHeight = Math.min(CLUSTER_SIZE, height - originY);
+            // Entrance cell in the high half, crossing bits in the low byte; sorted, then merged.
+            long[] found = new long[cells() + 8 * CLUSTER_SIZE];
+            int count = 0;
+            for (int local = 0; local < cells(); local++) {
+                if (owner.map.isSafeZone(global(local))) {
+                    found[count++] = (long) global(local) << 32;
+                }
+            }
+            for (int dir = 0; dir < GameMap.DIRECTIONS; dir++) {
+                count = findDoors(owner, dir, found, count);
+            }
+            Arrays.sort(found, 0, count);
+            int[] cells = new int[count];
+            byte[] bits = new byte[count];
+            int merged = 0;
+            for (int i = 0; i < count; i++) {
+                int cell = (int) (found[i] >>> 32);
+                if (merged == 0 || cells[merged - 1] != cell) {
+                    cells[merged++] = cell;
+                }
+                bits[merged - 1] |= (byte) found[i];
+            }
+            this.nodes = Arrays.copyOf(cells, merged);
+            this.crossings = Arrays.copyOf(bits, merged);
+            this.distances = new short[merged * merged];
+            Arrays.fill(distances, NONE);
+            short[] reached = new short[cells()];
+            for (int from = 0; from < merged; from++) {
+                if (owner.map.isSafeZone(nodes[from])) {
+                    continue;
+                }
+                search(owner, nodes[from], reached, null);
+                for (int to = 0; to < merged; to++) {
+                    if (to != from) {
+                        distances[from * merged + to] = reached[local(nodes[to])];
+                    }
+                }
+            }
+        }
+
+        /**
+         * Adds the entrances on the side of this cluster facing {@code dir}, if another cluster
+         * lies there. Runs of cell pairs that are passable on both sides give one entrance in the
+         * middle; a passable cell facing a safe zone is always one. The neighbouring cluster
+         * scans the same pairs in the same order, so both sides pick matching cells.
+         */
+        private int findDoors(HierarchicalPathfinder owner, int dir, long[] found, int count) {
+            int dx = Position.dx(dir);
+            int dy = Position.dy(dir);
+            int startX = dx > 0 ? clusterWidth - 1 : 0;
+            int startY = dy > 0 ? clusterHeight - 1 : 0;
+            if (originX + startX + dx < 0 || originX + startX + dx >= width
+                    || originY + startY + dy < 0 || originY + startY + dy >= owner.height) {
+                return count;
+            }
+            int length = dx != 0 ? clusterHeight : clusterWidth;
+            int run = 0;
+            for (int t = 0; t <= length; t++) {
+                boolean open = false;
+                if (t < length) {
+                    int cell = dx != 0 ? global(t * clusterWidth + startX) : global(startY * clusterWidth + t);
+                    int across = cell + dy * width + dx;
+                    open = owner.isPassable(cell) && owner.isPassable(across);
+                    if (owner.isPassable(cell) && owner.map.isSafeZone(across)) {
+                        found[count++] = (long) cell << 32 | 1 << dir;
+                    }
+                }
+                if (open) {
+                    run++;
+                } else if (run > 0) {
+                    int middle = t - run + (run - 1) / 2;
+                    int cell = dx != 0 ? global(middle * clusterWidth + startX) : global(startY * clusterWidth + middle);
+                    found[count++] = (long) cell << 32 | 1 << dir;
+                    run = 0;
+                }
+            }
+            return count;
+        }
+
+        int cells() {
+            return clusterWidth * clusterHeight;
+        }
+
+        int indexOf(int cell) {
+            return Arrays.binarySearch(nodes, cell);
+        }
+
+        /**
+         * Cell across the border towards {@code dir} that entrance {@code index} steps onto, or -1.
+         */
+        int crossingFrom(int index, int dir) {
+            return (crossings[index] & 1 << dir) == 0 ? -1
+                    : nodes[index] + Position.dy(dir) * width + Position.dx(dir);
+        }
+
+        /**
+         * Writes the steps from {@code from} to {@code to} found by the last search from
+         * {@code from} into {@code directions} at {@code length}; returns the new length.
+         */
+        int writeSteps(int from, int to, short[] parents, byte[] directions, int length) {
+            int steps = 0;
+            for (int cell = to; cell != from; cell = global(parents[local(cell)])) {
+                steps++;
+            }
+            int end = length + steps;
+            for (int cell = to; cell != from; ) {
+                int previous = global(parents[local(cell)]);
+                write(directions, --end, previous, cell, width);
+                cell = previous;
+            }
+            return length + steps;
+        }
+
+        int local(int cell) {
+            return (cell / width - originY) * clusterWidth + cell % width - originX;
+        }
+
+        int global(int local) {
+            return (originY + local / clusterWidth) * width + originX + local % clusterWidth;
+        }
+
+        /**
+         * BFS from {@code source} without leaving the cluster, on the owner's overlay and by the
+         * same rules as {@link MapOverlay#shortestPathToSafeZone}: the source is always left, safe
+         * zones are entered but never left. Fills {@code distances} ({@link #NONE} when unreached) and, when
+         * given, the local index each cell was reached from.
+         */
+        void search(HierarchicalPathfinder owner, int source, short[] distances, short[] parents) {
+            Arrays.fill(distances, NONE);
+            short[] queue = new short[cells()];
+            int head = 0;
+            int tail = 0;
+            int start = local(source);
+            distances[start] = 0;
+            queue[tail++] = (short) start;
+            while (head < tail) {
+                int current = queue[head++];
+                int cell = global(current);
+                if (current != start && !owner.isPassable(cell)) {
+                    continue;
+                }
+                int lx = current % clusterWidth;
+                int ly = current / clusterWidth;
+                for (int dir = 0; dir < GameMap.DIRECTIONS; dir++) {
+                    int nx = lx + Position.dx(dir);
+                    int ny = ly + Position.dy(dir);
+                    if (nx < 0 || ny < 0 || nx >= clusterWidth || ny >= clusterHeight) {
+                        continue;
+                    }
+                    int next = ny * clusterWidth + nx;
+                    if (distances[next] != NONE || !owner.isEnterable(global(next))) {
+                        continue;
+                    }
+                    distances[next] = (short) (distances[current] + 1);
+                    if (parents != null) {
+                        parents[next] = (short) current;
+                    }
+                    queue[tail++] = (short) next;
+                }
+            }
+        }
+    }
+}
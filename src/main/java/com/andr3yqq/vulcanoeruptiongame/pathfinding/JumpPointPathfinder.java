@@ -0,0 +1,141 @@
+package com.andr3yqq.vulcanoeruptiongame.pathfinding;
+
+import com.andr3yqq.vulcanoeruptiongame.model.MapOverlay;
+
+/**
+ * Jump-point search for the four-connected, uniform-cost grid. Instead of queueing every cell, a
+ * search slides along rows and columns and only stops where a path could have to turn: next to an
+ * obstacle corner, on a safe zone, or on a column cell from which a row scan finds either. Straight
+ * runs cost nothing on the heap, so open ground and long corridors take a handful of expansions,
+ * and row scans test 64 cells per step through {@link EnterableBits}.
+ */
+public class JumpPointPathfinder extends HeuristicSearch {
+
+    private final EnterableBits bits;
+
+    public JumpPointPathfinder(MapOverlay overlay) {
+        this(overlay, new SafeZoneHeuristic(overlay.getLayout()), new EnterableBits(overlay));
+    }
+
+    private JumpPointPathfinder(MapOverlay overlay, SafeZoneHeuristic heuristic, EnterableBits bits) {
+        super(overlay, heuristic);
+        this.bits = bits;
+    }
+
+    @Override
+    public JumpPointPathfinder fork(MapOverlay forkedOverlay) {
+        return new JumpPointPathfinder(forkedOverlay, heuristic(), bits.fork(forkedOverlay));
+    }
+
+    @Override
+    protected void expand(SearchScratch search, int cell) {
+        int x = cell % width;
+        int y = cell / width;
+        int parent = search.parent(cell);
+        if (parent < 0) {
+            follow(search, cell, jumpHorizontal(x, y, 1));
+            follow(search, cell, jumpHorizontal(x, y, -1));
+            follow(search, cell, jumpVertical(x, y, 1));
+            follow(search, cell, jumpVertical(x, y, -1));
+            return;
+        }
+        int dx = Integer.signum(x - parent % width);
+        int dy = Integer.signum(y - parent / width);
+        if (dx != 0) {
+            follow(search, cell, jumpHorizontal(x, y, dx));
+            follow(search, cell, jumpVertical(x, y, 1));
+            follow(search, cell, jumpVertical(x, y, -1));
+        } else {
+            follow(search, cell, jumpVertical(x, y, dy));
+            follow(search, cell, jumpHorizontal(x, y, 1));
+            follow(search, cell, jumpHorizontal(x, y, -1));
+        }
+    }
+
+    private void follow(SearchScratch search, int from, int jumpPoint) {
+        if (jumpPoint >= 0) {
+            int distance = Math.abs(jumpPoint % width - from % width) + Math.abs(jumpPoint / width - from / width);
+            reach(search, jumpPoint, from, search.cost(from) + distance);
+        }
+    }
+
+    private int jumpHorizontal(int x, int y, int dx) {
+        return dx > 0 ? scanRight(x, y) : scanLeft(x, y);
+    }
+
+    /**
+     * Next stop right of (x, y) on its row, or -1 when the row runs into an obstacle first. A cell
+     * is a stop when it is a safe zone, or when the cell above or below it is open while the one
+     * just behind that is not, since the only short way there turns here. Tests 64 cells at once.
+     */
+    private int scanRight(int x, int y) {
+        int row = y * width;
+        for (int from = x + 1; from < width; from += 64) {
+            int cell = row + from;
+            long stops = ~bits.window(cell) | bits.safeZoneWindow(cell);
+            if (y > 0) {
+                stops |= bits.window(cell - width) & ~bits.window(cell - width - 1);
+            }
+            if (y + 1 < height) {
+                stops |= bits.window(cell + width) & ~bits.window(cell + width - 1);
+            }
+            if (width - from < 64) {
+                stops &= (1L << (width - from)) - 1;
+            }
+            if (stops != 0) {
+                int stop = cell + Long.numberOfTrailingZeros(stops);
+                return bits.get(stop) ? stop : -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Mirror image of {@link #scanRight}.
+     */
+    private int scanLeft(int x, int y) {
+        int row = y * width;
+        for (int to = x - 1; to >= 0; to -= 64) {
+            int from = Math.max(0, to - 63);
+            int cell = row + from;
+            long stops = ~bits.window(cell) | bits.safeZoneWindow(cell);
+            if (y > 0) {
+                stops |= bits.window(cell - width) & ~bits.window(cell - width + 1);
+            }
+            if (y + 1 < height) {
+                stops |= bits.window(cell + width) & ~bits.window(cell + width + 1);
+            }
+            if (to - from < 63) {
+                stops &= (1L << (to - from + 1)) - 1;
+            }
+            if (stops != 0) {
+                int stop = cell + 63 - Long.numberOfLeadingZeros(stops);
+                return bits.get(stop) ? stop : -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Next stop along the column from (x, y) in direction {@code dy}, or -1 when the column runs
+     * into an obstacle first. Besides the row rules turned sideways, paths leave a column only where
+     * a row scan finds a stop, so every column cell scans both ways along its row.
+     */
+    private int jumpVertical(int x, int y, int dy) {
+        int step = dy * width;
+        for (int cell = y * width + x + step; cell >= 0 && cell < width * height; cell += step) {
+            if (!bits.get(cell)) {
+                return -1;
+            }
+            int row = cell / width;
+            if (map.isSafeZone(cell)
+                    || x > 0 && bits.get(cell - 1) && !bits.get(cell - 1 - step)
+                    || x + 1 < width && bits.get(cell + 1) && !bits.get(cell + 1 - step)
+                    || scanRight(x, row) >= 0
+                    || scanLeft(x, row) >= 0) {
+                return cell;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,36 @@
+package com.andr3yqq.vulcanoeruptiongame.pathfinding;
+
+import com.andr3yqq.vulcanoeruptiongame.model.MapOverlay;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.function.Function;
+
+/**
+ * How citizens find their way to a safe zone. The flow field pays one search of the whole map per
+ * map change and nothing per citizen, so it suits crowds. A* and jump-point search run one small
+ * search per citizen, which pays off on large open maps with few citizens. These three give
+ * equally short paths. The hierarchical search keeps precomputed crossings per map region and
+ * repairs only the regions that change, for large maze-like maps, at the price of paths a few
+ * steps longer than the shortest.
+ */
+@Getter
+@AllArgsConstructor
+public enum PathStrategy {
+    FLOW_FIELD("Srauto laukas", SafeZoneDistanceField::new),
+    A_STAR("A*", AStarPathfinder::new),
+    JUMP_POINT("Šuolių taškai", JumpPointPathfinder::new),
+    HIERARCHICAL("Hierarchinė paieška", HierarchicalPathfinder::new);
+
+    private final String displayName;
+    private final Function<MapOverlay, SafeZonePathfinder> factory;
+
+    public SafeZonePathfinder create(MapOverlay overlay) {
+        return factory.apply(overlay);
+    }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
@@ -0,0 +1,162 @@
+package com.andr3yqq.vulcanoeruptiongame.pathfinding;
+
+import com.andr3yqq.vulcanoeruptiongame.model.GameMap;
+import com.andr3yqq.vulcanoeruptiongame.model.MapOverlay;
+import com.andr3yqq.vulcanoeruptiongame.model.Position;
+import lombok.Getter;
+
+import java.util.Arrays;
+
+/**
+ * Flow field holding the step distance from every cell to the nearest safe zone. Built with one
+ * multi-source BFS from all safe zones, so any number of citizens can read a path by walking
+ * downhill instead of running their own search. Call {@link #invalidate()} whenever lava,
+ * barricades or roads change; the field is rebuilt lazily on the next query.
+ */
+public class SafeZoneDistanceField implements SafeZonePathfinder {
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    @Getter
+    private final MapOverlay overlay;
+    private final GameMap map;
+    private int[] distances;
+    private int[] queue;
+    private boolean dirty = true;
+    /**
+     * Set while {@link #distances} is also read by a fork; the next rebuild then starts on a
+     * fresh array.
+     */
+    private boolean shared;
+    @Getter
+    private long expansions;
+
+    public SafeZoneDistanceField(MapOverlay overlay) {
+        this.overlay = overlay;
+        this.map = overlay.getLayout();
+        this.distances = new int[map.getWidth() * map.getHeight()];
+    }
+
+    private SafeZoneDistanceField(MapOverlay overlay, SafeZoneDistanceField source) {
+        this.overlay = overlay;
+        this.map = overlay.getLayout();
+        this.distances = source.distances;
+        this.dirty = source.dirty;
+        this.shared = true;
+    }
+
+    /**
+     * Field for a fork of this field's overlay. Until either side rebuilds, both read the same
+     * distances, which is exact because the two overlays are still equal.
+     */
+    @Override
+    public SafeZoneDistanceField fork(MapOverlay forkedOverlay) {
+        shared = true;
+        return new SafeZoneDistanceField(forkedOverlay, this);
+    }
+
+    @Override
+    public void invalidate() {
+        dirty = true;
+    }
+
+    public int distanceAt(Position p) {
+        ensureFresh();
+        return map.isInside(p) ? distances[map.indexOf(p)] : UNREACHABLE;
+    }
+
+    @Override
+    public int distanceToSafeZone(int from) {
+        ensureFresh();
+        return distances[from] == UNREACHABLE ? -1 : distances[from];
+    }
+
+    /**
+     * Walks downhill from {@code from}; no search at all once the field is fresh.
+     */
+    @Override
+    public byte[] directionsToSafeZone(int from) {
+        ensureFresh();
+        int width = map.getWidth();
+        byte[] directions = null;
+        int length = 0;
+        int cursor = from;
+        int cursorDistance = UNREACHABLE;
+        do {
+            int next = -1;
+            int nextDir = -1;
+            int best = cursorDistance;
+            int x = cursor % width;
+            int y = cursor / width;
+            for (int dir = 0; dir < GameMap.DIRECTIONS; dir++) {
+                // Walls and the volcano are never reached by the BFS, so only bounds need checking.
+                int nx = x + Position.dx(dir);
+                int ny = y + Position.dy(dir);
+                if (nx < 0 || ny < 0 || nx >= width || ny >= map.getHeight()) {
+                    continue;
+                }
+                int neighbor = cursor + Position.dy(dir) * width + Position.dx(dir);
+                if (distances[neighbor] < best) {
+                    best = distances[neighbor];
+                    next = neighbor;
+                    nextDir = dir;
+                }
+            }
+            if (next < 0) {
+                return null;
+            }
+            if (directions == null) {
+                // Distances drop by exactly one per step from here on.
+                directions = new byte[best + 1];
+            }
+            directions[length++] = (byte) nextDir;
+            cursor = next;
+            cursorDistance = best;
+        } while (cursorDistance > 0);
+        return directions;
+    }
+
+    /**
+     * Rebuilds now if invalidated.
+     */
+    @Override
+    public void ensureFresh() {
+        if (dirty) {
+            rebuild();
+            dirty = false;
+        }
+    }
+
+    private void rebuild() {
+        if (shared) {
+            distances = new int[distances.length];
+            shared = false;
+        }
+        if (queue == null) {
+            queue = new int[distances.length];
+        }
+        Arrays.fill(distances, UNREACHABLE);
+        int head = 0;
+        int tail = 0;
+        for (Position zone : map.getSafeZones()) {
+            distances[map.indexOf(zone)] = 0;
+            queue[tail++] = map.indexOf(zone);
+        }
+        while (head < tail) {
+            int current = queue[head++];
+            expansions++;
+            int next = distances[current] + 1;
+            for (int dir = 0; dir < GameMap.DIRECTIONS; dir++) {
+                int idx = overlay.neighborIndex(current, dir);
+                if (idx < 0 || distances[idx] != UNREACHABLE) {
+                    continue;
+                }
+                // Safe zones are entered even when blocked, mirroring the per-citizen BFS.
+                if (!overlay.isTraversable(idx) && !map.isSafeZone(idx)) {
+                    continue;
+                }
+                distances[idx] = next;
+                queue[tail++] = idx;
+            }
+        }
+    }
+}
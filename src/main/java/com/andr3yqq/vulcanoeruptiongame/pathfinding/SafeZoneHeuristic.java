@@ -0,0 +1,58 @@
+package com.andr3yqq.vulcanoeruptiongame.pathfinding;
+
+import com.andr3yqq.vulcanoeruptiongame.model.GameMap;
+import com.andr3yqq.vulcanoeruptiongame.model.Position;
+
+import java.util.Arrays;
+
+/**
+ * Manhattan distance from every cell to the nearest safe zone, ignoring everything in between.
+ * Walls, lava and barricades can only make real paths longer, so this never overestimates; and it
+ * changes by at most one between neighbours, so A* never has to reopen a cell. It depends on the
+ * layout alone, so forks share it.
+ */
+final class SafeZoneHeuristic {
+    private final int[] distances;
+
+    SafeZoneHeuristic(GameMap map) {
+        int width = map.getWidth();
+        int height = map.getHeight();
+        distances = new int[width * height];
+        Arrays.fill(distances, -1);
+        int[] queue = new int[distances.length];
+        int head = 0;
+        int tail = 0;
+        for (Position zone : map.getSafeZones()) {
+            int cell = map.indexOf(zone);
+            if (distances[cell] < 0) {
+                distances[cell] = 0;
+                queue[tail++] = cell;
+            }
+        }
+        // Breadth-first over the open grid gives the exact distance to the nearest zone.
+        while (head < tail) {
+            int current = queue[head++];
+            int x = current % width;
+            int y = current / width;
+            for (int dir = 0; dir < GameMap.DIRECTIONS; dir++) {
+                int nx = x + Position.dx(dir);
+                int ny = y + Position.dy(dir);
+                if (nx < 0 || ny < 0 || nx >= width || ny >= height) {
+                    continue;
+                }
+                int neighbor = ny * width + nx;
+                if (distances[neighbor] < 0) {
+                    distances[neighbor] = distances[current] + 1;
+                    queue[tail++] = neighbor;
+                }
+            }
+        }
+    }
+
+    /**
+     * Lower bound on the steps from {@code cell} to a safe zone; -1 when the map has none.
+     */
+    int estimate(int cell) {
+        return distances[cell];
+    }
+}
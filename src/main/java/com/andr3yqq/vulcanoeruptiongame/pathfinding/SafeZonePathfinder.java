@@ -0,0 +1,86 @@
+package com.andr3yqq.vulcanoeruptiongame.pathfinding;
+
+import com.andr3yqq.vulcanoeruptiongame.model.CitizenStore;
+import com.andr3yqq.vulcanoeruptiongame.model.GameMap;
+import com.andr3yqq.vulcanoeruptiongame.model.MapOverlay;
+import com.andr3yqq.vulcanoeruptiongame.model.Position;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Route from a cell to the nearest safe zone on one {@link MapOverlay}. Exact implementations
+ * return paths of the same length as {@link MapOverlay#shortestPathToSafeZone}, though equally
+ * short paths may differ; {@link HierarchicalPathfinder} may return slightly longer ones. Pick
+ * one per game with {@link PathStrategy}.
+ */
+public interface SafeZonePathfinder {
+
+    /**
+     * One {@link Position#neighbors4()} direction per step from {@code from} to the nearest safe
+     * zone, in the form {@link CitizenStore#setPath(int, byte[])} takes, or {@code null} when none
+     * is reachable.
+     */
+    byte[] directionsToSafeZone(int from);
+
+    /**
+     * Same contract as {@link MapOverlay#shortestPathToSafeZone(Position)}: the returned path
+     * starts with {@code from} and ends on a safe zone.
+     */
+    default Optional<List<Position>> shortestPathToSafeZone(Position from) {
+        GameMap map = getOverlay().getLayout();
+        byte[] directions = directionsToSafeZone(map.indexOf(from));
+        if (directions == null) {
+            return Optional.empty();
+        }
+        List<Position> path = new ArrayList<>(directions.length + 1);
+        path.add(from);
+        Position cursor = from;
+        for (byte dir : directions) {
+            cursor = new Position(cursor.x() + Position.dx(dir), cursor.y() + Position.dy(dir));
+            path.add(cursor);
+        }
+        return Optional.of(path);
+    }
+
+    /**
+     * Steps from {@code from} to the nearest safe zone, or -1 when none is reachable.
+     */
+    default int distanceToSafeZone(int from) {
+        byte[] directions = directionsToSafeZone(from);
+        return directions == null ? -1 : directions.length;
+    }
+
+    MapOverlay getOverlay();
+
+    /**
+     * Must be called whenever lava, barricades or roads change.
+     */
+    void invalidate();
+
+    /**
+     * Like {@link #invalidate()}, for when only {@code changedCells} changed; pathfinders that can
+     * repair part of their data override this.
+     */
+    default void invalidate(BitSet changedCells) {
+        invalidate();
+    }
+
+    /**
+     * Brings cached data up to date. After this, queries may run on several threads until the
+     * next {@link #invalidate()}.
+     */
+    void ensureFresh();
+
+    /**
+     * Pathfinder for a fork of this one's overlay; whatever only depends on the layout is shared.
+     */
+    SafeZonePathfinder fork(MapOverlay forkedOverlay);
+
+    /**
+     * Cells taken off the open list or queue so far, summed over all searches and rebuilds.
+     */
+    long getExpansions();
+}
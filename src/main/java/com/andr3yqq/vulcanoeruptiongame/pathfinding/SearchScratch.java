@@ -0,0 +1,154 @@
+package com.andr3yqq.vulcanoeruptiongame.pathfinding;
+
+import com.andr3yqq.vulcanoeruptiongame.model.GameMap;
+import com.andr3yqq.vulcanoeruptiongame.model.Position;
+
+import java.util.Arrays;
+
+/**
+ * Per-thread working memory of one search: cost and parent per cell plus a binary heap. Cells are
+ * marked with the current search's stamp instead of being cleared, so starting a search is free
+ * and a thread reuses the same arrays for every search on every map.
+ */
+final class SearchScratch {
+    private static final ThreadLocal<SearchScratch> CURRENT = ThreadLocal.withInitial(SearchScratch::new);
+
+    private int[] stamps = new int[0];
+    private int[] costs = new int[0];
+    private int[] parents = new int[0];
+    private int stamp;
+    /**
+     * Heap entries: estimated total cost in the high half, {@code Integer.MAX_VALUE - cost} in the
+     * low half, so equal totals pop the deepest cell first.
+     */
+    private long[] keys = new long[64];
+    private int[] cells = new int[64];
+    private int size;
+
+    static SearchScratch acquire(int cellCount) {
+        SearchScratch scratch = CURRENT.get();
+        scratch.reset(cellCount);
+        return scratch;
+    }
+
+    private void reset(int cellCount) {
+        if (stamps.length < cellCount) {
+            stamps = new int[cellCount];
+            costs = new int[cellCount];
+            parents = new int[cellCount];
+            stamp = 0;
+        }
+        if (++stamp == 0) {
+            Arrays.fill(stamps, 0);
+            stamp = 1;
+        }
+        size = 0;
+    }
+
+    /**
+     * Records {@code cost} for {@code cell} and queues it, unless it was already reached at least
+     * as cheaply in this search.
+     */
+    void offer(int cell, int cost, int parent, int estimate) {
+        if (stamps[cell] == stamp && costs[cell] <= cost) {
+            return;
+        }
+        stamps[cell] = stamp;
+        costs[cell] = cost;
+        parents[cell] = parent;
+        push((long) (cost + estimate) << 32 | (Integer.MAX_VALUE - cost), cell);
+    }
+
+    /**
+     * Removes the cell with the lowest estimated total, skipping entries superseded by a cheaper
+     * {@link #offer}; -1 once the heap is empty.
+     */
+    int poll() {
+        while (size > 0) {
+            long key = keys[0];
+            int cell = cells[0];
+            size--;
+            if (size > 0) {
+                siftDown(keys[size], cells[size]);
+            }
+            if (Integer.MAX_VALUE - (int) key == costs[cell]) {
+                return cell;
+            }
+        }
+        return -1;
+    }
+
+    int cost(int cell) {
+        return costs[cell];
+    }
+
+    int parent(int cell) {
+        return parents[cell];
+    }
+
+    /**
+     * Directions from the search start to {@code goal} following the parent links. Consecutive
+     * cells on the chain must share a row or column; every cell between them is part of the path.
+     */
+    byte[] trace(int goal, int width) {
+        byte[] directions = new byte[costs[goal]];
+        int end = directions.length;
+        for (int cell = goal; parents[cell] >= 0; cell = parents[cell]) {
+            int from = parents[cell];
+            int dx = Integer.signum(cell % width - from % width);
+            int dy = Integer.signum(cell / width - from / width);
+            byte dir = directionOf(dx, dy);
+            for (int steps = costs[cell] - costs[from]; steps > 0; steps--) {
+                directions[--end] = dir;
+            }
+        }
+        return directions;
+    }
+
+    static byte directionOf(int dx, int dy) {
+        for (byte dir = 0; dir < GameMap.DIRECTIONS; dir++) {
+            if (Position.dx(dir) == dx && Position.dy(dir) == dy) {
+                return dir;
+            }
+        }
+        throw new IllegalStateException("Parent link is not a straight line");
+    }
+
+    private void push(long key, int cell) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            cells = Arrays.copyOf(cells, size * 2);
+        }
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >> 1;
+            if (keys[parent] <= key) {
+                break;
+            }
+            keys[i] = keys[parent];
+            cells[i] = cells[parent];
+            i = parent;
+        }
+        keys[i] = key;
+        cells[i] = cell;
+    }
+
+    private void siftDown(long key, int cell) {
+        int i = 0;
+        int half = size >> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && keys[child + 1] < keys[child]) {
+                child++;
+            }
+            if (key <= keys[child]) {
+                break;
+            }
+            keys[i] = keys[child];
+            cells[i] = cells[child];
+            i = child;
+        }
+        keys[i] = key;
+        cells[i] = cell;
+    }
+}
@@ -0,0 +1,144 @@
+package com.andr3yqq.vulcanoeruptiongame.simulation;
+
+import com.andr3yqq.vulcanoeruptiongame.model.ChunkedCellStore;
+import com.andr3yqq.vulcanoeruptiongame.model.GameMap;
+import com.andr3yqq.vulcanoeruptiongame.model.MapOverlay;
+import com.andr3yqq.vulcanoeruptiongame.model.PackedGrid;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Result of one lava spread, computed from a read-only view of the map: cells that ignite,
+ * barricades that melt, and frontier cells that were already enclosed. Large maps are scanned per
+ * {@value ChunkedCellStore#CHUNK_SIZE}x{@value ChunkedCellStore#CHUNK_SIZE} region, in parallel
+ * when the frontier is big enough. Region results are merged into sorted, duplicate-free arrays,
+ * so the outcome is identical to a sequential scan.
+ */
+final class LavaSpread {
+    static final int PARALLEL_THRESHOLD = 4096;
+    private static final int REGION_MIN_CELLS = 256 * 256;
+    private static final int SHIFT = ChunkedCellStore.CHUNK_SHIFT;
+
+    final int[] ignited;
+    final int[] melted;
+    final int[] enclosed;
+
+    private LavaSpread(int[] ignited, int[] melted, int[] enclosed) {
+        this.ignited = ignited;
+        this.melted = melted;
+        this.enclosed = enclosed;
+    }
+
+    static LavaSpread compute(MapOverlay overlay, BitSet frontier) {
+        PackedGrid grid = overlay.getLayout().getGrid();
+        if (grid.size() < REGION_MIN_CELLS) {
+            Scan scan = new Scan();
+            scan.visitRange(overlay, frontier, 0, grid.size());
+            return merge(List.of(scan));
+        }
+        int width = grid.getWidth();
+        int regionsX = (width + (1 << SHIFT) - 1) >> SHIFT;
+        BitSet activeRegions = new BitSet();
+        int frontierSize = 0;
+        for (int cell = frontier.nextSetBit(0); cell >= 0; cell = frontier.nextSetBit(cell + 1)) {
+            activeRegions.set(((cell / width) >> SHIFT) * regionsX + ((cell % width) >> SHIFT));
+            frontierSize++;
+        }
+        IntStream regions = Arrays.stream(activeRegions.stream().toArray());
+        if (frontierSize >= PARALLEL_THRESHOLD) {
+            regions = regions.parallel();
+        }
+        return merge(regions.mapToObj(region -> scanRegion(overlay, frontier, region, regionsX)).toList());
+    }
+
+    private static Scan scanRegion(MapOverlay overlay, BitSet frontier, int region, int regionsX) {
+        PackedGrid grid = overlay.getLayout().getGrid();
+        int x0 = (region % regionsX) << SHIFT;
+        int y0 = (region / regionsX) << SHIFT;
+        int x1 = Math.min(grid.getWidth(), x0 + (1 << SHIFT));
+        int y1 = Math.min(grid.getHeight(), y0 + (1 << SHIFT));
+        Scan scan = new Scan();
+        for (int y = y0; y < y1; y++) {
+            scan.visitRange(overlay, frontier, grid.index(x0, y), grid.index(x1 - 1, y) + 1);
+        }
+        return scan;
+    }
+
+    private static LavaSpread merge(List<Scan> scans) {
+        CellBuffer ignited = new CellBuffer();
+        CellBuffer melted = new CellBuffer();
+        CellBuffer enclosed = new CellBuffer();
+        for (Scan scan : scans) {
+            ignited.addAll(scan.ignited);
+            melted.addAll(scan.melted);
+            enclosed.addAll(scan.enclosed);
+        }
+        return new LavaSpread(ignited.toSortedUnique(), melted.toSortedUnique(), enclosed.toSortedUnique());
+    }
+
+    /**
+     * Findings for one slice of the frontier. Reads the overlay only, so slices can run concurrently.
+     */
+    private static final class Scan {
+        private final CellBuffer ignited = new CellBuffer();
+        private final CellBuffer melted = new CellBuffer();
+        private final CellBuffer enclosed = new CellBuffer();
+
+        private void visitRange(MapOverlay overlay, BitSet frontier, int from, int to) {
+            for (int source = frontier.nextSetBit(from); source >= 0 && source < to;
+                 source = frontier.nextSetBit(source + 1)) {
+                boolean surrounded = true;
+                for (int dir = 0; dir < GameMap.DIRECTIONS; dir++) {
+                    int cell = overlay.neighborIndex(source, dir);
+                    if (cell < 0 || overlay.hasLava(cell)) {
+                        continue;
+                    }
+                    surrounded = false;
+                    if (overlay.isBarricaded(cell)) {
+                        melted.add(cell);
+                    } else {
+                        ignited.add(cell);
+                    }
+                }
+                if (surrounded) {
+                    enclosed.add(source);
+                }
+            }
+        }
+    }
+
+    private static final class CellBuffer {
+        private int[] cells = new int[16];
+        private int size;
+
+        private void add(int cell) {
+            if (size == cells.length) {
+                cells = Arrays.copyOf(cells, size * 2);
+            }
+            cells[size++] = cell;
+        }
+
+        private void addAll(CellBuffer other) {
+            if (size + other.size > cells.length) {
+                cells = Arrays.copyOf(cells, Math.max(cells.length * 2, size + other.size));
+            }
+            System.arraycopy(other.cells, 0, cells, size, other.size);
+            size += other.size;
+        }
+
+        private int[] toSortedUnique() {
+            int[] sorted = Arrays.copyOf(cells, size);
+            Arrays.sort(sorted);
+            int unique = 0;
+            for (int i = 0; i < sorted.length; i++) {
+                if (i == 0 || sorted[i] != sorted[i - 1]) {
+                    sorted[unique++] = sorted[i];
+                }
+            }
+            return Arrays.copyOf(sorted, unique);
+        }
+    }
+}
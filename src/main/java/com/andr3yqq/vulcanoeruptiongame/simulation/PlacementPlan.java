@@ -0,0 +1,14 @@
+package com.andr3yqq.vulcanoeruptiongame.simulation;
+
+import com.andr3yqq.vulcanoeruptiongame.model.SimulationOutcome;
+
+import java.util.List;
+
+/**
+ * Best action sequence found by {@link PlacementSolver}, with the result of playing it to the end
+ * and the number of simulated games it took to find. {@link SimulationOutcome#RUNNING} means the
+ * tick limit was hit.
+ */
+public record PlacementPlan(List<PlayerAction> actions, SimulationOutcome outcome, int saved, int lost,
+                            int ticks, int evaluated) {
+}
@@ -0,0 +1,354 @@
+package com.andr3yqq.vulcanoeruptiongame.simulation;
+
+import com.andr3yqq.vulcanoeruptiongame.model.DifficultyLevel;
+import com.andr3yqq.vulcanoeruptiongame.model.GameMap;
+import com.andr3yqq.vulcanoeruptiongame.model.MapOverlay;
+import com.andr3yqq.vulcanoeruptiongame.model.Position;
+import com.andr3yqq.vulcanoeruptiongame.model.SimulationConfig;
+import com.andr3yqq.vulcanoeruptiongame.model.SimulationOutcome;
+import com.andr3yqq.vulcanoeruptiongame.model.SimulationState;
+import com.andr3yqq.vulcanoeruptiongame.model.TileType;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Searches barricade and open-road placements for one map with a beam search over
+ * {@link SimulationEngine#fork() forked} engines. A search node is an engine at some tick plus the
+ * actions that led there. It expands into "wait {@code stride} ticks" and one child per candidate
+ * action at the same tick, and each new child is scored by playing a fork of it to the end without
+ * further actions. Rollouts run in parallel on a fork/join pool; children that could not beat the
+ * best plan even if every citizen still evacuating got out are dropped unplayed.
+ *
+ * <p>Candidates are road cells a few steps ahead of the lava (barricades) and walls next to where
+ * active citizens are about to walk (open roads), so the branching factor stays small on any map.
+ *
+ * <p>Run with {@code mvn javafx:run@solve -Djavafx.args="--difficulty=HARD --budget-ms=10000"}.
+ * Options: {@code --difficulty=D}, {@code --seed=S}, {@code --budget-ms=T}, {@code --beam=B},
+ * {@code --stride=N}, {@code --candidates=C}, {@code --threads=T}, {@code --max-ticks=M} and
+ * {@code --out=file.vrlg}, which saves the plan as a replay log.
+ */
+public class PlacementSolver {
+    public static final int DEFAULT_BEAM_WIDTH = 12;
+    public static final int DEFAULT_STRIDE = 3;
+    public static final int DEFAULT_CANDIDATES = 16;
+    private static final int DEFAULT_MAX_TICKS = 10_000;
+    private static final long DEFAULT_BUDGET_MS = 5_000;
+    private static final int BARRICADE_REACH = 3;
+    private static final int PATH_LOOKAHEAD = 4;
+    private static final Comparator<Score> BEST_FIRST = Comparator.comparingInt(Score::saved).reversed()
+            .thenComparingInt(Score::lost)
+            .thenComparingInt(Score::actions)
+            .thenComparingInt(Score::ticks);
+    private static final Comparator<PlayerAction> CANONICAL = Comparator.comparingInt(PlayerAction::tick)
+            .thenComparing(PlayerAction::kind)
+            .thenComparingInt(action -> action.position().y())
+            .thenComparingInt(action -> action.position().x());
+
+    private final SimulationConfig config;
+    @Getter
+    @Setter
+    private int beamWidth = DEFAULT_BEAM_WIDTH;
+    /**
+     * Ticks between decision points.
+     */
+    @Getter
+    @Setter
+    private int stride = DEFAULT_STRIDE;
+    /**
+     * Candidate actions tried per node and decision point.
+     */
+    @Getter
+    @Setter
+    private int maxCandidates = DEFAULT_CANDIDATES;
+    @Getter
+    @Setter
+    private int maxTicks = DEFAULT_MAX_TICKS;
+    @Getter
+    @Setter
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    public PlacementSolver(SimulationConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * Best plan found within {@code budget}. Stops early once the beam is exhausted or a plan
+     * saves everyone.
+     */
+    public PlacementPlan solve(Duration budget) {
+        long deadline = System.nanoTime() + budget.toNanos();
+        SimulationEngine root = new SimulationEngine(config);
+        Node best = new Node(root, List.of(), rollout(root, List.of()));
+        AtomicInteger evaluated = new AtomicInteger(1);
+        int citizens = root.getState().getCitizens().size();
+        Set<List<PlayerAction>> seen = new HashSet<>();
+        List<Node> beam = List.of(best);
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, threads));
+        try {
+            while (!beam.isEmpty() && best.score().saved() < citizens && System.nanoTime() < deadline) {
+                // Forking writes to the parent, so children are created here, one thread only.
+                List<Node> children = expand(beam, seen);
+                int bar = best.score().saved();
+                List<Node> scored = pool.submit(() -> children.parallelStream()
+                        .filter(child -> child.upperBound() > bar)
+                        .map(child -> {
+                            if (child.score() != null) {
+                                return child;
+                            }
+                            if (System.nanoTime() >= deadline) {
+                                return null;
+                            }
+                            evaluated.incrementAndGet();
+                            return new Node(child.engine(), child.actions(), rollout(child.engine(), child.actions()));
+                        })
+                        .filter(Objects::nonNull)
+                        .toList()).get();
+                for (Node node : scored) {
+                    if (BEST_FIRST.compare(node.score(), best.score()) < 0) {
+                        best = node;
+                    }
+                }
+                beam = scored.stream()
+                        .filter(node -> !isFinal(node.engine().getState()))
+                        .sorted(Comparator.comparing(Node::score, BEST_FIRST))
+                        .limit(beamWidth)
+                        .toList();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Search interrupted", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Rollout failed", ex.getCause());
+        } finally {
+            pool.shutdown();
+        }
+        Score score = best.score();
+        return new PlacementPlan(best.actions(), score.outcome(), score.saved(), score.lost(), score.ticks(),
+                evaluated.get());
+    }
+
+    private List<Node> expand(List<Node> beam, Set<List<PlayerAction>> seen) {
+        List<Node> children = new ArrayList<>();
+        for (Node node : beam) {
+            SimulationEngine wait = node.engine().fork();
+            for (int i = 0; i < stride && isRunning(wait.getState()); i++) {
+                wait.step();
+            }
+            // Same actions, so the same rollout as the parent.
+            children.add(new Node(wait, node.actions(), node.score()));
+            for (PlayerAction action : candidates(node.engine().getState())) {
+                List<PlayerAction> actions = new ArrayList<>(node.actions());
+                actions.add(action);
+                List<PlayerAction> key = new ArrayList<>(actions);
+                key.sort(CANONICAL);
+                if (!seen.add(key)) {
+                    continue; // same actions as another child, applied in a different order
+                }
+                SimulationEngine child = node.engine().fork();
+                if (action.applyTo(child)) {
+                    children.add(new Node(child, List.copyOf(actions), null));
+                }
+            }
+        }
+        return children;
+    }
+
+    private List<PlayerAction> candidates(SimulationState state) {
+        List<PlayerAction> result = new ArrayList<>();
+        int tick = state.getTick();
+        GameMap map = config.getMap();
+        MapOverlay overlay = state.getOverlay();
+        if (state.getBarricadeActionsLeft() > 0) {
+            int limit = state.getOpenRoadActionsLeft() > 0 ? maxCandidates / 2 : maxCandidates;
+            for (int cell : roadsAheadOfLava(overlay, state.getLavaFrontier(), limit)) {
+                result.add(new PlayerAction(tick, PlayerAction.Kind.BARRICADE, map.positionOf(cell)));
+            }
+        }
+        if (state.getOpenRoadActionsLeft() > 0) {
+            Set<Integer> walls = new LinkedHashSet<>();
+            state.getScheduler().forEachActive(citizen -> {
+                collectWallsAround(map, overlay, citizen.getPosition(), walls);
+                List<Position> path = citizen.getPlannedPath();
+                for (int i = 0; i < Math.min(PATH_LOOKAHEAD, path.size()); i++) {
+                    collectWallsAround(map, overlay, path.get(i), walls);
+                }
+            });
+            for (int cell : walls) {
+                if (result.size() >= maxCandidates) {
+                    break;
+                }
+                result.add(new PlayerAction(tick, PlayerAction.Kind.OPEN_ROAD, map.positionOf(cell)));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Unbarricaded road cells at most {@value #BARRICADE_REACH} steps from the lava front, nearest
+     * first.
+     */
+    private static List<Integer> roadsAheadOfLava(MapOverlay overlay, BitSet frontier, int limit) {
+        List<Integer> roads = new ArrayList<>();
+        BitSet visited = (BitSet) frontier.clone();
+        List<Integer> layer = frontier.stream().boxed().toList();
+        for (int depth = 1; depth <= BARRICADE_REACH && !layer.isEmpty(); depth++) {
+            List<Integer> next = new ArrayList<>();
+            for (int cell : layer) {
+                for (int dir = 0; dir < GameMap.DIRECTIONS; dir++) {
+                    int neighbor = overlay.neighborIndex(cell, dir);
+                    if (neighbor < 0 || visited.get(neighbor) || overlay.hasLava(neighbor)) {
+                        continue;
+                    }
+                    visited.set(neighbor);
+                    next.add(neighbor);
+                    if (overlay.getType(neighbor) == TileType.ROAD && !overlay.isBarricaded(neighbor)) {
+                        roads.add(neighbor);
+                        if (roads.size() >= limit) {
+                            return roads;
+                        }
+                    }
+                }
+            }
+            layer = next;
+        }
+        return roads;
+    }
+
+    private static void collectWallsAround(GameMap map, MapOverlay overlay, Position center, Set<Integer> walls) {
+        for (Position neighbor : center.neighbors4()) {
+            if (map.isInside(neighbor) && overlay.getType(map.indexOf(neighbor)) == TileType.WALL) {
+                walls.add(map.indexOf(neighbor));
+            }
+        }
+    }
+
+    private Score rollout(SimulationEngine engine, List<PlayerAction> actions) {
+        SimulationState state = play(engine.fork(), maxTicks).getState();
+        return new Score(state.getOutcome(), state.getSavedCount(), state.getLostCount(), actions.size(),
+                state.getTick());
+    }
+
+    private boolean isFinal(SimulationState state) {
+        return !isRunning(state) || state.getTick() >= maxTicks
+                || state.getBarricadeActionsLeft() == 0 && state.getOpenRoadActionsLeft() == 0;
+    }
+
+    private static boolean isRunning(SimulationState state) {
+        return state.getOutcome() == SimulationOutcome.RUNNING;
+    }
+
+    private static SimulationEngine play(SimulationEngine engine, int maxTicks) {
+        while (isRunning(engine.getState()) && engine.getState().getTick() < maxTicks) {
+            engine.step();
+        }
+        return engine;
+    }
+
+    /**
+     * Plays the plan on a fresh engine with a recorder attached, so it can be inspected with
+     * {@link Replayer}.
+     */
+    public static ReplayLog record(DifficultyLevel level, long seed, PlacementPlan plan, int maxTicks) {
+        SimulationConfig config = level.createConfig(seed);
+        SimulationEngine engine = new SimulationEngine(config);
+        ReplayRecorder recorder = new ReplayRecorder(level, seed, config.getPathStrategy(),
+                ReplayRecorder.DEFAULT_KEYFRAME_INTERVAL);
+        engine.setRecorder(recorder);
+        for (PlayerAction action : plan.actions()) {
+            while (engine.getState().getTick() < action.tick()) {
+                engine.step();
+            }
+            if (!action.applyTo(engine)) {
+                throw new IllegalStateException("Plan no longer applies: " + action);
+            }
+        }
+        play(engine, maxTicks);
+        return recorder.toLog();
+    }
+
+    public static void main(String[] args) throws IOException {
+        DifficultyLevel level = DifficultyLevel.NORMAL;
+        long seed = 1L;
+        long budgetMs = DEFAULT_BUDGET_MS;
+        Path out = null;
+        int beam = DEFAULT_BEAM_WIDTH;
+        int stride = DEFAULT_STRIDE;
+        int candidates = DEFAULT_CANDIDATES;
+        int maxTicks = DEFAULT_MAX_TICKS;
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            String key = eq < 0 ? arg : arg.substring(0, eq);
+            String value = eq < 0 ? "" : arg.substring(eq + 1);
+            switch (key) {
+                case "--difficulty" -> level = DifficultyLevel.valueOf(value.trim().toUpperCase(Locale.ROOT));
+                case "--seed" -> seed = Long.parseLong(value);
+                case "--budget-ms" -> budgetMs = Long.parseLong(value);
+                case "--beam" -> beam = Integer.parseInt(value);
+                case "--stride" -> stride = Integer.parseInt(value);
+                case "--candidates" -> candidates = Integer.parseInt(value);
+                case "--threads" -> threads = Integer.parseInt(value);
+                case "--max-ticks" -> maxTicks = Integer.parseInt(value);
+                case "--out" -> out = Path.of(value);
+                default -> throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        }
+        SimulationConfig config = level.createConfig(seed);
+        SimulationState baseline = play(new SimulationEngine(config), maxTicks).getState();
+        PlacementSolver solver = new PlacementSolver(config);
+        solver.setBeamWidth(beam);
+        solver.setStride(stride);
+        solver.setMaxCandidates(candidates);
+        solver.setThreads(threads);
+        solver.setMaxTicks(maxTicks);
+
+        long started = System.nanoTime();
+        PlacementPlan plan = solver.solve(Duration.ofMillis(budgetMs));
+        long elapsed = System.nanoTime() - started;
+        System.out.printf(Locale.ROOT, "%s seed=%d without actions: outcome=%s saved=%d lost=%d%n",
+                level, seed, baseline.getOutcome(), baseline.getSavedCount(), baseline.getLostCount());
+        System.out.printf(Locale.ROOT, "plan: outcome=%s saved=%d lost=%d ticks=%d%n",
+                plan.outcome(), plan.saved(), plan.lost(), plan.ticks());
+        for (PlayerAction action : plan.actions()) {
+            System.out.printf(Locale.ROOT, "  tick %d: %s %s%n", action.tick(), action.kind(), action.position());
+        }
+        System.err.printf(Locale.ROOT, "%d rollouts on %d threads in %.1f ms%n",
+                plan.evaluated(), threads, elapsed / 1e6);
+        if (out != null) {
+            record(level, seed, plan, maxTicks).write(out);
+        }
+    }
+
+    private record Score(SimulationOutcome outcome, int saved, int lost, int actions, int ticks) {
+    }
+
+    /**
+     * {@code score} is null until the node has been played out.
+     */
+    private record Node(SimulationEngine engine, List<PlayerAction> actions, Score score) {
+
+        /**
+         * Most citizens this node could still end up saving.
+         */
+        int upperBound() {
+            SimulationState state = engine.getState();
+            return state.getSavedCount() + state.getScheduler().size();
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.andr3yqq.vulcanoeruptiongame.simulation;
+
+import com.andr3yqq.vulcanoeruptiongame.model.Position;
+
+/**
+ * A successful player action, stamped with the tick after which it was applied (0 = before the
+ * first tick).
+ */
+public record PlayerAction(int tick, Kind kind, Position position) {
+
+    public enum Kind { BARRICADE, OPEN_ROAD }
+
+    /**
+     * Applies the action to an engine standing at {@link #tick()}.
+     */
+    boolean applyTo(SimulationEngine engine) {
+        return switch (kind) {
+            case BARRICADE -> engine.buildBarricade(position);
+            case OPEN_ROAD -> engine.openRoad(position);
+        };
+    }
+}
@@ -0,0 +1,121 @@
+package com.andr3yqq.vulcanoeruptiongame.simulation;
+
+import com.andr3yqq.vulcanoeruptiongame.model.DifficultyLevel;
+import com.andr3yqq.vulcanoeruptiongame.model.Position;
+import com.andr3yqq.vulcanoeruptiongame.model.StateKeyframe;
+import com.andr3yqq.vulcanoeruptiongame.model.VarInts;
+import com.andr3yqq.vulcanoeruptiongame.pathfinding.PathStrategy;
+import lombok.Getter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Everything needed to reproduce one game exactly: difficulty and seed (the map and citizens
+ * follow from {@link DifficultyLevel#createConfig(long)}), the {@link PathStrategy} citizens were
+ * routed with, the tick-stamped player actions and periodic {@link StateKeyframe}s for seeking.
+ * Stored as a compact binary file: a magic number and version, the header fields, then
+ * varint-encoded actions with tick deltas, then the keyframes. Version 1 logs predate the path
+ * strategy field and were all recorded with {@link PathStrategy#FLOW_FIELD}.
+ */
+@Getter
+public class ReplayLog {
+    private static final int MAGIC = 0x56524C47; // "VRLG"
+    private static final int VERSION = 2;
+    private static final PlayerAction.Kind[] KINDS = PlayerAction.Kind.values();
+
+    private final DifficultyLevel difficulty;
+    private final long seed;
+    private final PathStrategy pathStrategy;
+    private final List<PlayerAction> actions;
+    private final NavigableMap<Integer, StateKeyframe> keyframes;
+
+    public ReplayLog(DifficultyLevel difficulty, long seed, PathStrategy pathStrategy, List<PlayerAction> actions,
+                     NavigableMap<Integer, StateKeyframe> keyframes) {
+        this.difficulty = difficulty;
+        this.seed = seed;
+        this.pathStrategy = pathStrategy;
+        this.actions = actions;
+        this.keyframes = Collections.unmodifiableNavigableMap(keyframes);
+    }
+
+    public void write(OutputStream stream) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeUTF(difficulty.name());
+        out.writeLong(seed);
+        out.writeUTF(pathStrategy.name());
+        VarInts.write(out, actions.size());
+        int previousTick = 0;
+        for (PlayerAction action : actions) {
+            VarInts.write(out, action.tick() - previousTick);
+            out.writeByte(action.kind().ordinal());
+            VarInts.write(out, action.position().x());
+            VarInts.write(out, action.position().y());
+            previousTick = action.tick();
+        }
+        VarInts.write(out, keyframes.size());
+        for (StateKeyframe keyframe : keyframes.values()) {
+            keyframe.writeTo(out);
+        }
+        out.flush();
+    }
+
+    public static ReplayLog read(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(stream));
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a replay log");
+        }
+        int version = in.readUnsignedByte();
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Unsupported replay log version " + version);
+        }
+        DifficultyLevel difficulty = DifficultyLevel.valueOf(in.readUTF());
+        long seed = in.readLong();
+        PathStrategy pathStrategy = version == 1 ? PathStrategy.FLOW_FIELD : PathStrategy.valueOf(in.readUTF());
+        int actionCount = VarInts.read(in);
+        List<PlayerAction> actions = new ArrayList<>(actionCount);
+        int tick = 0;
+        for (int i = 0; i < actionCount; i++) {
+            tick += VarInts.read(in);
+            PlayerAction.Kind kind = KINDS[in.readUnsignedByte()];
+            actions.add(new PlayerAction(tick, kind, new Position(VarInts.read(in), VarInts.read(in))));
+        }
+        int keyframeCount = VarInts.read(in);
+        NavigableMap<Integer, StateKeyframe> keyframes = new TreeMap<>();
+        for (int i = 0; i < keyframeCount; i++) {
+            StateKeyframe keyframe = StateKeyframe.readFrom(in);
+            keyframes.put(keyframe.getTick(), keyframe);
+        }
+        return new ReplayLog(difficulty, seed, pathStrategy, List.copyOf(actions), keyframes);
+    }
+
+    public void write(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (OutputStream out = Files.newOutputStream(file)) {
+            write(out);
+        }
+    }
+
+    public static ReplayLog read(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return read(in);
+        }
+    }
+}
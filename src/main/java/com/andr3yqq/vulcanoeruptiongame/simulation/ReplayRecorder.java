@@ -0,0 +1,59 @@
+package com.andr3yqq.vulcanoeruptiongame.simulation;
+
+import com.andr3yqq.vulcanoeruptiongame.model.DifficultyLevel;
+import com.andr3yqq.vulcanoeruptiongame.model.SimulationState;
+import com.andr3yqq.vulcanoeruptiongame.model.StateKeyframe;
+import com.andr3yqq.vulcanoeruptiongame.pathfinding.PathStrategy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Collects what a {@link ReplayLog} needs while a game is played: the seed and path strategy,
+ * every successful player action and a {@link StateKeyframe} every {@code keyframeInterval} ticks.
+ * Attach with {@link SimulationEngine#setRecorder(ReplayRecorder)} before the first tick; it is
+ * then called on the thread that owns the engine.
+ */
+public class ReplayRecorder {
+    public static final int DEFAULT_KEYFRAME_INTERVAL = 50;
+
+    private final DifficultyLevel difficulty;
+    private final long seed;
+    private final PathStrategy pathStrategy;
+    private final int keyframeInterval;
+    private final List<PlayerAction> actions = new ArrayList<>();
+    private final NavigableMap<Integer, StateKeyframe> keyframes = new TreeMap<>();
+
+    /**
+     * @param seed         the seed passed to {@link DifficultyLevel#createConfig(long)} for this game
+     * @param pathStrategy the strategy of the game's config
+     */
+    public ReplayRecorder(DifficultyLevel difficulty, long seed, PathStrategy pathStrategy, int keyframeInterval) {
+        if (keyframeInterval <= 0) {
+            throw new IllegalArgumentException("Keyframe interval must be positive");
+        }
+        this.difficulty = difficulty;
+        this.seed = seed;
+        this.pathStrategy = pathStrategy;
+        this.keyframeInterval = keyframeInterval;
+    }
+
+    void afterTick(SimulationState state) {
+        if (state.getTick() % keyframeInterval == 0) {
+            keyframes.put(state.getTick(), StateKeyframe.capture(state));
+        }
+    }
+
+    void record(PlayerAction action) {
+        actions.add(action);
+    }
+
+    /**
+     * Log of everything recorded so far; recording can continue afterwards.
+     */
+    public ReplayLog toLog() {
+        return new ReplayLog(difficulty, seed, pathStrategy, List.copyOf(actions), new TreeMap<>(keyframes));
+    }
+}
@@ -0,0 +1,95 @@
+package com.andr3yqq.vulcanoeruptiongame.simulation;
+
+import com.andr3yqq.vulcanoeruptiongame.model.SimulationConfig;
+import com.andr3yqq.vulcanoeruptiongame.model.SimulationOutcome;
+import com.andr3yqq.vulcanoeruptiongame.model.SimulationState;
+import com.andr3yqq.vulcanoeruptiongame.model.StateKeyframe;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Headless playback of a {@link ReplayLog}. {@link #seek(int)} starts from the closest keyframe at
+ * or before the target and simulates only the remaining ticks, without any UI clock.
+ *
+ * <p>Run with {@code mvn javafx:run@replay -Djavafx.args="replay.vrlg --tick=120"}; without
+ * {@code --tick} the game is played to its outcome (at most {@code --max-ticks}).
+ */
+public class Replayer {
+    private static final int DEFAULT_MAX_TICKS = 10_000;
+
+    private final ReplayLog log;
+    private final SimulationConfig config;
+
+    public Replayer(ReplayLog log) {
+        this.log = log;
+        this.config = log.getDifficulty().createConfig(log.getSeed()).withPathStrategy(log.getPathStrategy());
+    }
+
+    /**
+     * Engine standing after tick {@code tick} and the actions stamped with it, or earlier if the
+     * game ended first. Each call returns a fresh engine.
+     *
+     * @throws IllegalStateException when a recorded action no longer applies, i.e. the replay
+     *                               diverged from the recorded game
+     */
+    public SimulationEngine seek(int tick) {
+        Map.Entry<Integer, StateKeyframe> keyframe = log.getKeyframes().floorEntry(tick);
+        SimulationEngine engine = keyframe == null
+                ? new SimulationEngine(config)
+                : new SimulationEngine(keyframe.getValue().restore(config));
+        SimulationState state = engine.getState();
+        List<PlayerAction> actions = log.getActions();
+        int next = 0;
+        while (next < actions.size() && actions.get(next).tick() < state.getTick()) {
+            next++;
+        }
+        while (true) {
+            while (next < actions.size() && actions.get(next).tick() == state.getTick()) {
+                PlayerAction action = actions.get(next++);
+                if (!action.applyTo(engine)) {
+                    throw new IllegalStateException("Replay diverged: " + action + " was rejected");
+                }
+            }
+            if (state.getTick() >= tick || state.getOutcome() != SimulationOutcome.RUNNING) {
+                return engine;
+            }
+            engine.step();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path file = null;
+        int tick = -1;
+        int maxTicks = DEFAULT_MAX_TICKS;
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            String key = eq < 0 ? arg : arg.substring(0, eq);
+            String value = eq < 0 ? "" : arg.substring(eq + 1);
+            switch (key) {
+                case "--tick" -> tick = Integer.parseInt(value);
+                case "--max-ticks" -> maxTicks = Integer.parseInt(value);
+                default -> {
+                    if (key.startsWith("--") || file != null) {
+                        throw new IllegalArgumentException("Unknown option: " + arg);
+                    }
+                    file = Path.of(arg);
+                }
+            }
+        }
+        if (file == null) {
+            throw new IllegalArgumentException("Usage: Replayer <log> [--tick=N] [--max-ticks=M]");
+        }
+        ReplayLog log = ReplayLog.read(file);
+        long started = System.nanoTime();
+        SimulationState state = new Replayer(log).seek(tick < 0 ? maxTicks : tick).getState();
+        System.out.printf(Locale.ROOT, "%s seed=%d pathfinder=%s tick=%d outcome=%s saved=%d lost=%d%n",
+                log.getDifficulty(), log.getSeed(), log.getPathStrategy().name(), state.getTick(), state.getOutcome(),
+                state.getSavedCount(), state.getLostCount());
+        System.err.printf(Locale.ROOT, "%d actions, %d keyframes, replayed in %.1f ms%n",
+                log.getActions().size(), log.getKeyframes().size(), (System.nanoTime() - started) / 1e6);
+    }
+}
@@ -1,137 +1,272 @@
 package com.andr3yqq.vulcanoeruptiongame.simulation;
 
-import com.andr3yqq.vulcanoeruptiongame.model.Citizen;
+import com.andr3yqq.vulcanoeruptiongame.metrics.SimulationMetrics;
+import com.andr3yqq.vulcanoeruptiongame.metrics.TickPhase;
+import com.andr3yqq.vulcanoeruptiongame.model.CitizenStore;
 import com.andr3yqq.vulcanoeruptiongame.model.GameMap;
+import com.andr3yqq.vulcanoeruptiongame.model.MapOverlay;
 import com.andr3yqq.vulcanoeruptiongame.model.Position;
 import com.andr3yqq.vulcanoeruptiongame.model.SimulationConfig;
 import com.andr3yqq.vulcanoeruptiongame.model.SimulationOutcome;
 import com.andr3yqq.vulcanoeruptiongame.model.SimulationState;
+import com.andr3yqq.vulcanoeruptiongame.model.StateKeyframe;
 import com.andr3yqq.vulcanoeruptiongame.model.Tile;
 import com.andr3yqq.vulcanoeruptiongame.model.TileType;
+import com.andr3yqq.vulcanoeruptiongame.pathfinding.SafeZonePathfinder;
 import lombok.Getter;
+import lombok.Setter;
 
-import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.Deque;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
-import java.util.HashSet;
-import java.util.Set;
 
 /**
- * Pure simulation logic; the UI layer will call {@link #tick()} on a schedule.
+ * Pure simulation logic; the UI layer will call {@link #step()} on a schedule. What happens in a
+ * tick is pushed to {@link TickListener}s, or collected into a {@link TickReport} by {@link #tick()}.
  */
 public class SimulationEngine {
+    /**
+     * Citizens without a path from which the move phase plans them all at once, in parallel.
+     */
+    static final int PARALLEL_PLANNING_THRESHOLD = 4096;
 
     @Getter
     private final SimulationState state;
     private final GameMap map;
+    private final MapOverlay overlay;
+    private final CitizenStore citizens;
+    private final SafeZonePathfinder pathfinder;
+    /**
+     * Phase timings and work counters of this engine's ticks; a fork starts its own.
+     */
+    @Getter
+    private final SimulationMetrics metrics = new SimulationMetrics();
+    /**
+     * Optional; receives every tick and successful player action. Forks do not inherit it.
+     */
+    @Getter
+    @Setter
+    private ReplayRecorder recorder;
+    /**
+     * Copied on change, so notifying them needs no iterator. Forks do not inherit them.
+     */
+    private TickListener[] listeners = new TickListener[0];
+    /**
+     * Collects the current tick's events while {@link #tick()} runs, otherwise {@code null}.
+     */
+    private TickReport report;
 
     public SimulationEngine(SimulationConfig config) {
-        this.state = SimulationState.bootstrap(config);
-        this.map = config.getMap();
+        this(SimulationState.bootstrap(config));
+    }
+
+    /**
+     * Resumes an existing state, e.g. one restored from a {@link StateKeyframe}. Planned paths are
+     * kept; the distance field is rebuilt on first use.
+     */
+    public SimulationEngine(SimulationState state) {
+        this.state = state;
+        this.map = state.getConfig().getMap();
+        this.overlay = state.getOverlay();
+        this.citizens = state.getCitizens();
+        this.pathfinder = state.getConfig().getPathStrategy().create(overlay);
+    }
+
+    private SimulationEngine(SimulationEngine source) {
+        this.state = source.state.fork();
+        this.map = source.map;
+        this.overlay = state.getOverlay();
+        this.citizens = state.getCitizens();
+        this.pathfinder = source.pathfinder.fork(overlay);
+    }
+
+    /**
+     * What-if branch of this game at the current tick: ticks and player actions on the fork never
+     * affect this engine, and vice versa. Unchanged structure stays shared until one side writes
+     * to it, so forking costs about one copy of the active citizens.
+     */
+    public SimulationEngine fork() {
+        return new SimulationEngine(this);
+    }
+
+    public void addListener(TickListener listener) {
+        listeners = Arrays.copyOf(listeners, listeners.length + 1);
+        listeners[listeners.length - 1] = listener;
+    }
+
+    public void removeListener(TickListener listener) {
+        List<TickListener> remaining = new ArrayList<>(List.of(listeners));
+        remaining.remove(listener);
+        listeners = remaining.toArray(new TickListener[0]);
+    }
+
+    /**
+     * Plays one tick, reporting it to the listeners only. Once the game is over this does nothing
+     * and notifies nobody.
+     */
+    public SimulationOutcome step() {
+        if (state.getOutcome() != SimulationOutcome.RUNNING) {
+            return state.getOutcome();
+        }
+
+        state.incrementTick();
+        int tick = state.getTick();
+        for (TickListener listener : listeners) {
+            listener.onTickStarted(tick);
+        }
+        metrics.beginTick(tick, pathfinder.getExpansions());
+        metrics.beginPhase(TickPhase.MOVE_CITIZENS);
+        moveCitizens();
+        metrics.endPhase();
+        if (tick % state.getConfig().getLavaSpreadInterval() == 0) {
+            metrics.beginPhase(TickPhase.SPREAD_LAVA);
+            spreadLava();
+            metrics.endPhase();
+        }
+        metrics.beginPhase(TickPhase.EVALUATE_OUTCOME);
+        evaluateOutcome();
+        metrics.endPhase();
+        metrics.endTick(pathfinder.getExpansions());
+        if (recorder != null) {
+            recorder.afterTick(state);
+        }
+        SimulationOutcome outcome = state.getOutcome();
+        for (TickListener listener : listeners) {
+            listener.onTickEnded(tick, outcome);
+        }
+        if (report != null) {
+            report.onTickEnded(tick, outcome);
+        }
+        return outcome;
     }
 
+    /**
+     * {@link #step()} that also returns the tick's events as a {@link TickReport}; after the game
+     * is over, a report without events for the last tick.
+     */
     public TickReport tick() {
         if (state.getOutcome() != SimulationOutcome.RUNNING) {
             TickReport idleReport = new TickReport(state.getTick());
             idleReport.setOutcome(state.getOutcome());
             return idleReport;
         }
-
-        state.incrementTick();
-        TickReport report = new TickReport(state.getTick());
-
-        moveCitizens(report);
-        if (state.getTick() % state.getConfig().getLavaSpreadInterval() == 0) {
-            spreadLava(report);
+        TickReport collected = new TickReport(state.getTick() + 1, map);
+        report = collected;
+        try {
+            step();
+        } finally {
+            report = null;
         }
-        evaluateOutcome(report);
-        return report;
+        return collected;
     }
 
-    private void moveCitizens(TickReport report) {
-        List<Citizen> ordered = new ArrayList<>(state.getCitizens());
-        ordered.sort(Comparator.comparingInt(Citizen::getPriority).reversed().thenComparingInt(Citizen::getId));
-        for (Citizen citizen : ordered) {
-            if (!citizen.isAlive() || citizen.isSafe()) {
-                continue;
-            }
-            ensurePath(citizen);
-            for (int step = 0; step < citizen.getType().getTilesPerTick(); step++) {
-                if (!citizen.hasPath()) {
-                    ensurePath(citizen);
-                    if (!citizen.hasPath()) {
-                        break; // stuck for now
-                    }
-                }
-                Position next = citizen.nextStep().orElse(null);
-                if (next == null) {
-                    break;
-                }
-                citizen.setPosition(next);
-                Tile tile = map.getTile(next);
-                if (tile.hasLava()) {
-                    state.markCitizenDead(citizen);
-                    report.getLostCitizens().add(citizen.getId());
-                    break;
-                }
-                if (map.isSafeZone(next)) {
-                    state.markCitizenSafe(citizen);
-                    report.getSavedCitizens().add(citizen.getId());
-                    break;
-                }
-            }
-        }
+    private void moveCitizens() {
+        planMissingPaths();
+        state.getScheduler().forEachActiveSlot(this::moveCitizen);
     }
 
-    private void ensurePath(Citizen citizen) {
-        if (citizen.hasPath()) {
-            return;
+    /**
+     * Plans every citizen without a path up front, in parallel when there are at least
+     * {@link #PARALLEL_PLANNING_THRESHOLD} of them (e.g. the first tick of a city-scale run).
+     * Nothing changes the map during the move phase, so each plan is the one
+     * {@link #ensurePath(int)} would have made at that citizen's turn.
+     */
+    private void planMissingPaths() {
+        int count = citizens.unplannedCount();
+        if (count < PARALLEL_PLANNING_THRESHOLD) {
+            return; // planned lazily by ensurePath
         }
-        map.shortestPathToSafeZone(citizen.getPosition()).ifPresent(path -> {
-            Deque<Position> deque = new ArrayDeque<>(path);
-            if (!deque.isEmpty()) {
-                deque.pollFirst(); // remove current tile
+        int[] unplanned = new int[count];
+        int[] found = new int[1];
+        state.getScheduler().forEachActiveSlot(slot -> {
+            if (!citizens.hasPath(slot)) {
+                unplanned[found[0]++] = slot;
             }
-            citizen.setPath(deque);
         });
+        pathfinder.ensureFresh();
+        // Searches run in parallel; the store is only written from this thread.
+        byte[][] plans = Arrays.stream(unplanned)
+                .parallel()
+                .mapToObj(slot -> pathfinder.directionsToSafeZone(citizens.getCell(slot)))
+                .toArray(byte[][]::new);
+        for (int i = 0; i < unplanned.length; i++) {
+            metrics.countReplan();
+            if (plans[i] != null) {
+                citizens.setPath(unplanned[i], plans[i]);
+            }
+        }
     }
 
-    private void spreadLava(TickReport report) {
-        Set<Position> newCells = new HashSet<>();
-        List<Position> sources = new ArrayList<>(state.getLavaCells());
-        for (Position source : sources) {
-            for (Position neighbor : map.neighbors(source)) {
-                if (state.getLavaCells().contains(neighbor) || newCells.contains(neighbor)) {
-                    continue;
+    private void moveCitizen(int slot) {
+        ensurePath(slot);
+        for (int step = 0; step < citizens.getType(slot).getTilesPerTick(); step++) {
+            if (!citizens.hasPath(slot)) {
+                ensurePath(slot);
+                if (!citizens.hasPath(slot)) {
+                    break; // stuck for now
                 }
-                Tile tile = map.getTile(neighbor);
-                if (tile.isBarricaded()) {
-                    tile.setBarricaded(false); // melts this tick, lava proceeds next tick
-                    continue;
-                }
-                tile.setLava(true);
-                newCells.add(neighbor);
-                report.getNewLavaTiles().add(neighbor);
-                eliminateCitizensOn(neighbor, report);
+            }
+            int next = citizens.advance(slot);
+            if (overlay.hasLava(next)) {
+                state.markCitizenDead(slot);
+                citizenLost(slot);
+                break;
+            }
+            if (map.isSafeZone(next)) {
+                state.markCitizenSafe(slot);
+                citizenSaved(slot);
+                break;
             }
         }
-        state.getLavaCells().addAll(newCells);
     }
 
-    private void eliminateCitizensOn(Position tilePos, TickReport report) {
-        for (Citizen citizen : state.getCitizens()) {
-            if (citizen.isAlive() && !citizen.isSafe() && citizen.getPosition().equals(tilePos)) {
-                state.markCitizenDead(citizen);
-                report.getLostCitizens().add(citizen.getId());
-            }
+    private void ensurePath(int slot) {
+        if (citizens.hasPath(slot)) {
+            return;
+        }
+        metrics.countReplan();
+        byte[] directions = pathfinder.directionsToSafeZone(citizens.getCell(slot));
+        if (directions != null) {
+            citizens.setPath(slot, directions);
         }
     }
 
-    private void evaluateOutcome(TickReport report) {
+    private void spreadLava() {
+        BitSet frontier = state.getLavaFrontier();
+        LavaSpread spread = LavaSpread.compute(overlay, frontier);
+        BitSet changed = new BitSet();
+        for (int cell : spread.melted) {
+            overlay.setBarricaded(cell, false); // melts this tick, lava proceeds next tick
+            changed.set(cell);
+            barricadeMelted(cell);
+        }
+        for (int cell : spread.enclosed) {
+            frontier.clear(cell);
+        }
+        // New cells join after the scan so they only spread from the next interval on.
+        BitSet ignited = new BitSet();
+        for (int cell : spread.ignited) {
+            overlay.setLava(cell, true);
+            frontier.set(cell);
+            ignited.set(cell);
+            lavaSpread(cell);
+        }
+        changed.or(ignited);
+        metrics.countLavaCells(spread.ignited.length);
+        for (int slot : citizens.activeOn(ignited)) {
+            state.markCitizenDead(slot);
+            citizenLost(slot);
+        }
+        if (!changed.isEmpty()) {
+            pathfinder.invalidate(changed);
+        }
+        // Citizens routed through new lava replan on their next move; everyone else keeps walking.
+        citizens.clearPathsCrossing(ignited);
+    }
+
+    private void evaluateOutcome() {
         if (state.getOutcome() != SimulationOutcome.RUNNING) {
-            report.setOutcome(state.getOutcome());
             return;
         }
         if (state.everyoneResolved()) {
@@ -139,7 +274,44 @@ public class SimulationEngine {
         } else if (state.getLostCount() == state.getCitizens().size()) {
             state.setOutcome(SimulationOutcome.FAILURE);
         }
-        report.setOutcome(state.getOutcome());
+    }
+
+    private void citizenSaved(int slot) {
+        int id = citizens.getId(slot);
+        for (TickListener listener : listeners) {
+            listener.onCitizenSaved(state.getTick(), id);
+        }
+        if (report != null) {
+            report.onCitizenSaved(state.getTick(), id);
+        }
+    }
+
+    private void citizenLost(int slot) {
+        int id = citizens.getId(slot);
+        for (TickListener listener : listeners) {
+            listener.onCitizenLost(state.getTick(), id);
+        }
+        if (report != null) {
+            report.onCitizenLost(state.getTick(), id);
+        }
+    }
+
+    private void lavaSpread(int cell) {
+        for (TickListener listener : listeners) {
+            listener.onLavaSpread(state.getTick(), cell);
+        }
+        if (report != null) {
+            report.onLavaSpread(state.getTick(), cell);
+        }
+    }
+
+    private void barricadeMelted(int cell) {
+        for (TickListener listener : listeners) {
+            listener.onBarricadeMelted(state.getTick(), cell);
+        }
+        if (report != null) {
+            report.onBarricadeMelted(state.getTick(), cell);
+        }
     }
 
     public boolean buildBarricade(Position position) {
@@ -149,12 +321,19 @@ public class SimulationEngine {
         if (!map.isInside(position)) {
             return false;
         }
-        Tile tile = map.getTile(position);
+        Tile tile = overlay.getTile(position);
         if (tile.getType() != TileType.ROAD || tile.hasLava()) {
             return false;
         }
         tile.setBarricaded(true);
         state.decrementBarricade();
+        if (recorder != null) {
+            recorder.record(new PlayerAction(state.getTick(), PlayerAction.Kind.BARRICADE, position));
+        }
+        BitSet blocked = new BitSet();
+        blocked.set(map.indexOf(position));
+        pathfinder.invalidate(blocked);
+        citizens.clearPathsCrossing(blocked);
         return true;
     }
 
@@ -165,12 +344,53 @@ public class SimulationEngine {
         if (!map.isInside(position)) {
             return false;
         }
-        Tile tile = map.getTile(position);
+        Tile tile = overlay.getTile(position);
         if (tile.getType() != TileType.WALL) {
             return false;
         }
-        tile.setType(TileType.ROAD);
+        tile.openRoad();
         state.decrementOpenRoad();
+        if (recorder != null) {
+            recorder.record(new PlayerAction(state.getTick(), PlayerAction.Kind.OPEN_ROAD, position));
+        }
+        // Retired lava next to the new road becomes part of the frontier again.
+        for (Position neighbor : overlay.neighbors(position)) {
+            if (overlay.getTile(neighbor).hasLava()) {
+                state.getLavaFrontier().set(map.indexOf(neighbor));
+            }
+        }
+        int cell = map.indexOf(position);
+        BitSet opened = new BitSet();
+        opened.set(cell);
+        pathfinder.invalidate(opened);
+        clearPathsShortenedBy(cell);
         return true;
     }
+
+    /**
+     * Drops the plans that a road opened at {@code opened} makes longer than necessary. Any
+     * shorter route passes through the new road, so it is at least the Manhattan distance to it
+     * plus the road's own distance to safety; only citizens whose remaining path exceeds that are
+     * looked up in the pathfinder.
+     */
+    private void clearPathsShortenedBy(int opened) {
+        int viaOpened = pathfinder.distanceToSafeZone(opened);
+        if (viaOpened < 0) {
+            return;
+        }
+        int width = map.getWidth();
+        state.getScheduler().forEachActiveSlot(slot -> {
+            int cell = citizens.getCell(slot);
+            int remaining = citizens.remainingSteps(slot);
+            int bound = Math.abs(cell % width - opened % width) + Math.abs(cell / width - opened / width)
+                    + viaOpened;
+            if (remaining <= bound) {
+                return;
+            }
+            int distance = pathfinder.distanceToSafeZone(cell);
+            if (distance >= 0 && remaining > distance) {
+                citizens.clearPath(slot);
+            }
+        });
+    }
 }
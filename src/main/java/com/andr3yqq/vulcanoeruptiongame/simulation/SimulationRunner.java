@@ -0,0 +1,167 @@
+package com.andr3yqq.vulcanoeruptiongame.simulation;
+
+import com.andr3yqq.vulcanoeruptiongame.model.Position;
+import com.andr3yqq.vulcanoeruptiongame.model.SimulationOutcome;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * Owns a {@link SimulationEngine} on a dedicated virtual thread. Controls and player actions are
+ * queued as commands, so the engine is only ever touched by that thread. Ticks and actions only
+ * collect their events; a {@link SimulationSnapshot} of the state, with everything collected since
+ * the previous one, is captured once per {@link #requestFrame()}, as soon as there is something
+ * new, and always for the tick that ends the game. The listener is called on the simulation
+ * thread and is expected to hand the snapshot over, e.g. through an atomic reference.
+ */
+public class SimulationRunner {
+    private final SimulationEngine engine;
+    private final Consumer<SimulationSnapshot> listener;
+    private final TickEventBuffer events = TickEventBuffer.accumulating();
+    private final List<Position> changedByActions = new ArrayList<>();
+    private final AtomicBoolean frameRequested = new AtomicBoolean();
+    private final BlockingQueue<Runnable> commands = new LinkedBlockingQueue<>();
+    private boolean changed;
+    private SimulationSpeed speed;
+    private boolean playing;
+    private boolean stopped;
+    private long nextTickNanos;
+
+    public SimulationRunner(SimulationEngine engine, SimulationSpeed speed, Consumer<SimulationSnapshot> listener) {
+        this.engine = engine;
+        this.speed = speed;
+        this.listener = listener;
+        engine.addListener(events);
+    }
+
+    /**
+     * Snapshot of the untouched game, including the erupting volcano; call before {@link #start()}.
+     */
+    public SimulationSnapshot initialSnapshot() {
+        return SimulationSnapshot.capture(engine.getState(), events,
+                List.of(engine.getState().getConfig().getMap().getVolcanoSource()), engine.getMetrics().snapshot());
+    }
+
+    public void start() {
+        Thread.ofVirtual().name("simulation").start(this::run);
+    }
+
+    public void play() {
+        commands.add(() -> {
+            playing = true;
+            nextTickNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(speed.getTickMillis());
+        });
+    }
+
+    public void pause() {
+        commands.add(() -> playing = false);
+    }
+
+    public void setSpeed(SimulationSpeed newSpeed) {
+        commands.add(() -> {
+            speed = newSpeed;
+            nextTickNanos = Math.min(nextTickNanos,
+                    System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(newSpeed.getTickMillis()));
+        });
+    }
+
+    public CompletableFuture<Boolean> buildBarricade(Position position) {
+        return submitAction(position, () -> engine.buildBarricade(position));
+    }
+
+    public CompletableFuture<Boolean> openRoad(Position position) {
+        return submitAction(position, () -> engine.openRoad(position));
+    }
+
+    /**
+     * Writes the engine's {@link ReplayRecorder} log on the simulation thread, so it is consistent
+     * with the last published snapshot. Fails if the engine is not being recorded.
+     */
+    public CompletableFuture<Path> saveReplay(Path file) {
+        CompletableFuture<Path> result = new CompletableFuture<>();
+        commands.add(() -> {
+            try {
+                ReplayRecorder recorder = engine.getRecorder();
+                if (recorder == null) {
+                    throw new IllegalStateException("Game is not being recorded");
+                }
+                recorder.toLog().write(file);
+                result.complete(file);
+            } catch (IOException | RuntimeException ex) {
+                result.completeExceptionally(ex);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Asks for the next snapshot; repeated calls before it is published are merged into one.
+     */
+    public void requestFrame() {
+        if (frameRequested.compareAndSet(false, true)) {
+            commands.add(this::publishIfRequested);
+        }
+    }
+
+    public void shutdown() {
+        commands.add(() -> stopped = true);
+    }
+
+    private CompletableFuture<Boolean> submitAction(Position position, BooleanSupplier action) {
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        commands.add(() -> {
+            boolean applied = action.getAsBoolean();
+            if (applied) {
+                changedByActions.add(position);
+                changed = true;
+                publishIfRequested();
+            }
+            result.complete(applied);
+        });
+        return result;
+    }
+
+    private void publishIfRequested() {
+        boolean over = engine.getState().getOutcome() != SimulationOutcome.RUNNING;
+        if (!changed || !over && !frameRequested.get()) {
+            return;
+        }
+        frameRequested.set(false);
+        SimulationSnapshot snapshot = SimulationSnapshot.capture(engine.getState(), events, changedByActions,
+                engine.getMetrics().snapshot());
+        events.clear();
+        changedByActions.clear();
+        changed = false;
+        listener.accept(snapshot);
+    }
+
+    private void run() {
+        try {
+            while (!stopped) {
+                boolean ticking = playing && engine.getState().getOutcome() == SimulationOutcome.RUNNING;
+                Runnable command = ticking
+                        ? commands.poll(nextTickNanos - System.nanoTime(), TimeUnit.NANOSECONDS)
+                        : commands.take();
+                if (command != null) {
+                    command.run();
+                    continue;
+                }
+                engine.step();
+                changed = true;
+                publishIfRequested();
+                nextTickNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(speed.getTickMillis());
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.andr3yqq.vulcanoeruptiongame.simulation;
+
+import com.andr3yqq.vulcanoeruptiongame.metrics.MetricsSnapshot;
+import com.andr3yqq.vulcanoeruptiongame.model.CitizenStore;
+import com.andr3yqq.vulcanoeruptiongame.model.CitizenType;
+import com.andr3yqq.vulcanoeruptiongame.model.GameMap;
+import com.andr3yqq.vulcanoeruptiongame.model.MapOverlay;
+import com.andr3yqq.vulcanoeruptiongame.model.Position;
+import com.andr3yqq.vulcanoeruptiongame.model.SimulationOutcome;
+import com.andr3yqq.vulcanoeruptiongame.model.SimulationState;
+import com.andr3yqq.vulcanoeruptiongame.model.TileType;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Immutable picture of the game published by {@link SimulationRunner} when the UI asks for a
+ * frame. Carries the counters, the active citizens, the cells that changed since the previous
+ * snapshot and the events of the ticks in between, so the UI never touches live engine state.
+ * The id arrays belong to the snapshot and must not be modified.
+ */
+@Getter
+public class SimulationSnapshot {
+    private final int tick;
+    private final int savedCount;
+    private final int lostCount;
+    private final int barricadeActionsLeft;
+    private final int openRoadActionsLeft;
+    private final SimulationOutcome outcome;
+    private final List<CitizenView> citizens;
+    private final List<CellView> changedCells;
+    private final int[] savedCitizens;
+    private final int[] lostCitizens;
+    private final int newLavaCount;
+    private final MetricsSnapshot metrics;
+
+    private SimulationSnapshot(SimulationState state, List<CellView> changedCells, int[] savedCitizens,
+                               int[] lostCitizens, int newLavaCount, MetricsSnapshot metrics) {
+        this.tick = state.getTick();
+        this.savedCount = state.getSavedCount();
+        this.lostCount = state.getLostCount();
+        this.barricadeActionsLeft = state.getBarricadeActionsLeft();
+        this.openRoadActionsLeft = state.getOpenRoadActionsLeft();
+        this.outcome = state.getOutcome();
+        this.citizens = activeCitizens(state);
+        this.changedCells = changedCells;
+        this.savedCitizens = savedCitizens;
+        this.lostCitizens = lostCitizens;
+        this.newLavaCount = newLavaCount;
+        this.metrics = metrics;
+    }
+
+    private SimulationSnapshot(SimulationSnapshot latest, SimulationSnapshot earlier) {
+        this.tick = latest.tick;
+        this.savedCount = latest.savedCount;
+        this.lostCount = latest.lostCount;
+        this.barricadeActionsLeft = latest.barricadeActionsLeft;
+        this.openRoadActionsLeft = latest.openRoadActionsLeft;
+        this.outcome = latest.outcome;
+        this.citizens = latest.citizens;
+        List<CellView> cells = new ArrayList<>(earlier.changedCells.size() + latest.changedCells.size());
+        cells.addAll(earlier.changedCells);
+        cells.addAll(latest.changedCells);
+        this.changedCells = List.copyOf(cells);
+        this.savedCitizens = concat(earlier.savedCitizens, latest.savedCitizens);
+        this.lostCitizens = concat(earlier.lostCitizens, latest.lostCitizens);
+        this.newLavaCount = earlier.newLavaCount + latest.newLavaCount;
+        this.metrics = latest.metrics;
+    }
+
+    /**
+     * This snapshot with the changes and events of {@code earlier} in front of its own, for a
+     * consumer that fell behind and only needs the latest state.
+     */
+    public SimulationSnapshot mergedAfter(SimulationSnapshot earlier) {
+        return new SimulationSnapshot(this, earlier);
+    }
+
+    /**
+     * Same as {@link #capture(SimulationState, TickReport, Collection, MetricsSnapshot)} without
+     * metrics.
+     */
+    public static SimulationSnapshot capture(SimulationState state, TickReport report, Collection<Position> changed) {
+        return capture(state, report, changed, MetricsSnapshot.EMPTY);
+    }
+
+    /**
+     * Must run on the thread that owns the engine.
+     *
+     * @param report  the tick just played, or {@code null} for a snapshot after a player action
+     * @param changed cells whose type, lava or barricade state changed outside the report
+     * @param metrics the engine's metrics at this point
+     */
+    public static SimulationSnapshot capture(SimulationState state, TickReport report, Collection<Position> changed,
+                                             MetricsSnapshot metrics) {
+        MapOverlay overlay = state.getOverlay();
+        List<CellView> cells = new ArrayList<>(changed.size());
+        for (Position position : changed) {
+            cells.add(CellView.of(overlay, position));
+        }
+        if (report != null) {
+            for (Position position : report.getNewLavaTiles()) {
+                cells.add(CellView.of(overlay, position));
+            }
+            for (Position position : report.getMeltedBarricades()) {
+                cells.add(CellView.of(overlay, position));
+            }
+        }
+        return report == null
+                ? new SimulationSnapshot(state, List.copyOf(cells), new int[0], new int[0], 0, metrics)
+                : new SimulationSnapshot(state, List.copyOf(cells), toArray(report.getSavedCitizens()),
+                        toArray(report.getLostCitizens()), report.getNewLavaTiles().size(), metrics);
+    }
+
+    /**
+     * Snapshot after the ticks whose events were pushed into {@code events}; must run on the
+     * thread that owns the engine.
+     *
+     * @param changed cells whose type, lava or barricade state changed outside the events
+     */
+    public static SimulationSnapshot capture(SimulationState state, TickEventBuffer events,
+                                             Collection<Position> changed, MetricsSnapshot metrics) {
+        MapOverlay overlay = state.getOverlay();
+        GameMap map = overlay.getLayout();
+        List<CellView> cells = new ArrayList<>(changed.size() + events.newLavaCount() + events.meltedCount());
+        for (Position position : changed) {
+            cells.add(CellView.of(overlay, position));
+        }
+        for (int i = 0; i < events.newLavaCount(); i++) {
+            cells.add(CellView.of(overlay, map.positionOf(events.newLavaCell(i))));
+        }
+        for (int i = 0; i < events.meltedCount(); i++) {
+            cells.add(CellView.of(overlay, map.positionOf(events.meltedCell(i))));
+        }
+        return new SimulationSnapshot(state, List.copyOf(cells), events.savedCitizens(), events.lostCitizens(),
+                events.newLavaCount(), metrics);
+    }
+
+    private static int[] concat(int[] first, int[] second) {
+        int[] both = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, both, first.length, second.length);
+        return both;
+    }
+
+    private static int[] toArray(List<Integer> ids) {
+        return ids.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static List<CitizenView> activeCitizens(SimulationState state) {
+        List<CitizenView> active = new ArrayList<>(state.getScheduler().size());
+        CitizenStore store = state.getCitizens();
+        state.getScheduler().forEachActiveSlot(slot -> active.add(CitizenView.of(store, slot)));
+        return List.copyOf(active);
+    }
+
+    public record CitizenView(int id, CitizenType type, int priority, Position position) {
+        static CitizenView of(CitizenStore store, int slot) {
+            return new CitizenView(store.getId(slot), store.getType(slot), store.getPriority(slot),
+                    store.getPosition(slot));
+        }
+    }
+
+    public record CellView(Position position, TileType type, boolean lava, boolean barricaded) {
+        static CellView of(MapOverlay overlay, Position position) {
+            int index = overlay.getLayout().indexOf(position);
+            return new CellView(position, overlay.getType(index), overlay.hasLava(index),
+                    overlay.isBarricaded(index));
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.andr3yqq.vulcanoeruptiongame.simulation;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public enum SimulationSpeed {
+    SLOW("Lėtai", 1200),
+    NORMAL("Įprastai", 600),
+    FAST("Greitai", 150),
+    FAST_FORWARD("Be ribų", 0);
+
+    private final String displayName;
+    /**
+     * Pause between ticks; zero runs unthrottled and the UI only shows the latest snapshot.
+     */
+    private final long tickMillis;
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
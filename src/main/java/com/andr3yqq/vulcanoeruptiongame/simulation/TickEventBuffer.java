@@ -0,0 +1,145 @@
+package com.andr3yqq.vulcanoeruptiongame.simulation;
+
+import com.andr3yqq.vulcanoeruptiongame.model.SimulationOutcome;
+import lombok.Getter;
+
+import java.util.Arrays;
+
+/**
+ * {@link TickListener} that keeps the events of the latest tick in primitive arrays. The arrays
+ * are cleared, not replaced, when the next tick starts, so a game of any length allocates only
+ * while the busiest tick so far is being outgrown. An {@link #accumulating()} buffer keeps the
+ * events of every tick until {@link #clear()} instead.
+ */
+public final class TickEventBuffer implements TickListener {
+    @Getter
+    private int tick;
+    @Getter
+    private SimulationOutcome outcome = SimulationOutcome.RUNNING;
+    private final boolean clearedEachTick;
+    private final Events saved = new Events();
+    private final Events lost = new Events();
+    private final Events newLava = new Events();
+    private final Events melted = new Events();
+
+    public TickEventBuffer() {
+        this(true);
+    }
+
+    private TickEventBuffer(boolean clearedEachTick) {
+        this.clearedEachTick = clearedEachTick;
+    }
+
+    /**
+     * Buffer collecting the events of all ticks since the last {@link #clear()}.
+     */
+    public static TickEventBuffer accumulating() {
+        return new TickEventBuffer(false);
+    }
+
+    @Override
+    public void onTickStarted(int tick) {
+        this.tick = tick;
+        if (clearedEachTick) {
+            clear();
+        }
+    }
+
+    public void clear() {
+        saved.size = 0;
+        lost.size = 0;
+        newLava.size = 0;
+        melted.size = 0;
+    }
+
+    @Override
+    public void onCitizenSaved(int tick, int citizenId) {
+        saved.add(citizenId);
+    }
+
+    @Override
+    public void onCitizenLost(int tick, int citizenId) {
+        lost.add(citizenId);
+    }
+
+    @Override
+    public void onLavaSpread(int tick, int cell) {
+        newLava.add(cell);
+    }
+
+    @Override
+    public void onBarricadeMelted(int tick, int cell) {
+        melted.add(cell);
+    }
+
+    @Override
+    public void onTickEnded(int tick, SimulationOutcome outcome) {
+        this.outcome = outcome;
+    }
+
+    public int savedCount() {
+        return saved.size;
+    }
+
+    public int savedCitizen(int i) {
+        return saved.get(i);
+    }
+
+    /**
+     * Copy of the saved citizen ids, in the order they were saved.
+     */
+    public int[] savedCitizens() {
+        return saved.toArray();
+    }
+
+    public int lostCount() {
+        return lost.size;
+    }
+
+    public int lostCitizen(int i) {
+        return lost.get(i);
+    }
+
+    public int[] lostCitizens() {
+        return lost.toArray();
+    }
+
+    public int newLavaCount() {
+        return newLava.size;
+    }
+
+    public int newLavaCell(int i) {
+        return newLava.get(i);
+    }
+
+    public int meltedCount() {
+        return melted.size;
+    }
+
+    public int meltedCell(int i) {
+        return melted.get(i);
+    }
+
+    private static final class Events {
+        int[] values = new int[16];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int get(int i) {
+            if (i >= size) {
+                throw new IndexOutOfBoundsException(i);
+            }
+            return values[i];
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
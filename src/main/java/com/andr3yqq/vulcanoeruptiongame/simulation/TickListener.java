@@ -0,0 +1,30 @@
+package com.andr3yqq.vulcanoeruptiongame.simulation;
+
+import com.andr3yqq.vulcanoeruptiongame.model.GameMap;
+import com.andr3yqq.vulcanoeruptiongame.model.SimulationOutcome;
+
+/**
+ * Receives what happens during {@link SimulationEngine#step()} as it happens, with primitive
+ * arguments, so listening costs no allocation. Cells are {@link GameMap#indexOf} indices. Called on
+ * the engine's thread; every method defaults to doing nothing.
+ */
+public interface TickListener {
+
+    default void onTickStarted(int tick) {
+    }
+
+    default void onCitizenSaved(int tick, int citizenId) {
+    }
+
+    default void onCitizenLost(int tick, int citizenId) {
+    }
+
+    default void onLavaSpread(int tick, int cell) {
+    }
+
+    default void onBarricadeMelted(int tick, int cell) {
+    }
+
+    default void onTickEnded(int tick, SimulationOutcome outcome) {
+    }
+}
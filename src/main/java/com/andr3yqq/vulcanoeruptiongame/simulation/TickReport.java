@@ -1,24 +1,66 @@
 package com.andr3yqq.vulcanoeruptiongame.simulation;
 
+import com.andr3yqq.vulcanoeruptiongame.model.GameMap;
 import com.andr3yqq.vulcanoeruptiongame.model.Position;
 import com.andr3yqq.vulcanoeruptiongame.model.SimulationOutcome;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 
 import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * Events of one tick collected into lists, as returned by {@link SimulationEngine#tick()}. A
+ * convenience adapter over {@link TickListener}; per-tick consumers that care about garbage use
+ * {@link SimulationEngine#step()} with a listener such as {@link TickEventBuffer} instead.
+ */
 @Getter
-public class TickReport {
+public class TickReport implements TickListener {
     private final int tick;
     private final List<Integer> savedCitizens = new ArrayList<>();
     private final List<Integer> lostCitizens = new ArrayList<>();
     private final List<Position> newLavaTiles = new ArrayList<>();
+    private final List<Position> meltedBarricades = new ArrayList<>();
     @Setter
     private SimulationOutcome outcome;
+    @Getter(AccessLevel.NONE)
+    private final GameMap map;
 
     public TickReport(int tick) {
+        this(tick, null);
+    }
+
+    /**
+     * @param map layout the cell indices of the events refer to
+     */
+    public TickReport(int tick, GameMap map) {
         this.tick = tick;
+        this.map = map;
+    }
+
+    @Override
+    public void onCitizenSaved(int tick, int citizenId) {
+        savedCitizens.add(citizenId);
+    }
+
+    @Override
+    public void onCitizenLost(int tick, int citizenId) {
+        lostCitizens.add(citizenId);
     }
 
+    @Override
+    public void onLavaSpread(int tick, int cell) {
+        newLavaTiles.add(map.positionOf(cell));
+    }
+
+    @Override
+    public void onBarricadeMelted(int tick, int cell) {
+        meltedBarricades.add(map.positionOf(cell));
+    }
+
+    @Override
+    public void onTickEnded(int tick, SimulationOutcome outcome) {
+        this.outcome = outcome;
+    }
 }
@@ -1,128 +1,240 @@
 package com.andr3yqq.vulcanoeruptiongame.ui;
 
-import com.andr3yqq.vulcanoeruptiongame.model.Citizen;
 import com.andr3yqq.vulcanoeruptiongame.model.GameMap;
+import com.andr3yqq.vulcanoeruptiongame.model.PackedGrid;
 import com.andr3yqq.vulcanoeruptiongame.model.Position;
-import com.andr3yqq.vulcanoeruptiongame.model.Tile;
 import com.andr3yqq.vulcanoeruptiongame.model.TileType;
-import com.andr3yqq.vulcanoeruptiongame.simulation.SimulationEngine;
+import com.andr3yqq.vulcanoeruptiongame.simulation.SimulationSnapshot;
+import com.andr3yqq.vulcanoeruptiongame.simulation.SimulationSnapshot.CellView;
+import com.andr3yqq.vulcanoeruptiongame.simulation.SimulationSnapshot.CitizenView;
 import javafx.geometry.VPos;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
 import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
 import javafx.scene.text.TextAlignment;
 
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
- * Draws the grid-based map, lava spread, and citizens onto a provided canvas.
+ * Draws the grid-based map, lava spread, and citizens onto a provided canvas. Tile colours live in
+ * a one-pixel-per-cell image that is scaled onto the canvas; after the first frame only cells
+ * marked dirty (lava, barricades, opened roads, moving citizens) are repainted, each strictly
+ * inside its own bounds. Only the shared layout is read directly; lava and barricades are copied
+ * from the {@link SimulationSnapshot}s it is fed, so it never reads live simulation state.
  */
 public class MapRenderer {
+    private static final Color GRID_LINE = Color.color(0, 0, 0, 0.2);
+    private static final Color LAVA = Color.color(0.85, 0.25, 0.1, 0.8);
+
     private final Canvas canvas;
-    private final SimulationEngine engine;
+    private final int width;
+    private final int height;
+    private final WritableImage staticLayer;
+    private final BitSet lava = new BitSet();
+    private final BitSet barricades = new BitSet();
+    private final BitSet dirtyCells = new BitSet();
+    private final Map<Integer, Integer> drawnCitizenCells = new HashMap<>();
+    private Map<Integer, List<CitizenView>> citizensByCell = Map.of();
+    private List<CitizenView> citizens = List.of();
     private double cellSize;
+    private boolean fullRedraw = true;
 
-    public MapRenderer(Canvas canvas, SimulationEngine engine) {
+    /**
+     * Paints the shared layout; lava and barricades arrive with the snapshots.
+     */
+    public MapRenderer(Canvas canvas, GameMap map) {
         this.canvas = canvas;
-        this.engine = engine;
+        this.width = map.getWidth();
+        this.height = map.getHeight();
+        this.staticLayer = new WritableImage(width, height);
+        PackedGrid grid = map.getGrid();
+        PixelWriter writer = staticLayer.getPixelWriter();
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                writer.setColor(x, y, baseColor(grid.getType(grid.index(x, y))));
+            }
+        }
     }
 
-    public void draw() {
-        GraphicsContext gc = canvas.getGraphicsContext2D();
-        gc.setFill(Color.BLACK);
-        gc.fillRect(0, 0, canvas.getWidth(), canvas.getHeight());
-
-        GameMap map = engine.getState().getConfig().getMap();
-        cellSize = Math.min(
-                canvas.getWidth() / map.getWidth(),
-                canvas.getHeight() / map.getHeight());
+    /**
+     * Takes over the cells and citizens of a snapshot; nothing is painted until {@link #draw()}.
+     */
+    public void apply(SimulationSnapshot snapshot) {
+        PixelWriter writer = staticLayer.getPixelWriter();
+        for (CellView view : snapshot.getChangedCells()) {
+            Position position = view.position();
+            int cell = position.y() * width + position.x();
+            writer.setColor(position.x(), position.y(), baseColor(view.type()));
+            lava.set(cell, view.lava());
+            barricades.set(cell, view.barricaded());
+            dirtyCells.set(cell);
+        }
+        citizens = snapshot.getCitizens();
+    }
 
-        drawTiles(gc, map);
-        drawCitizens(gc);
-        drawGrid(gc, map);
+    public void invalidateAll() {
+        fullRedraw = true;
     }
 
-    private void drawTiles(GraphicsContext gc, GameMap map) {
-        for (int y = 0; y < map.getHeight(); y++) {
-            for (int x = 0; x < map.getWidth(); x++) {
-                Position position = new Position(x, y);
-                Tile tile = map.getTile(position);
-                Color baseColor = switch (tile.getType()) {
-                    case ROAD -> Color.DARKGRAY;
-                    case HOUSE -> Color.BEIGE;
-                    case SAFE_ZONE -> Color.DARKSEAGREEN;
-                    case VOLCANO -> Color.DARKRED;
-                    case WALL -> Color.DIMGRAY;
-                };
-                double px = x * cellSize;
-                double py = y * cellSize;
-                gc.setFill(baseColor);
-                gc.fillRect(px, py, cellSize, cellSize);
+    /**
+     * Repaints the cells changed by applied snapshots plus any citizen that moved since the last
+     * frame.
+     */
+    public void draw() {
+        double size = Math.min(canvas.getWidth() / width, canvas.getHeight() / height);
+        if (size != cellSize) {
+            cellSize = size;
+            fullRedraw = true;
+        }
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        gc.setImageSmoothing(false);
+        gc.setFont(Font.font(cellSize * 0.4));
+        gc.setTextAlign(TextAlignment.CENTER);
+        gc.setTextBaseline(VPos.CENTER);
+        markMovedCitizens();
+        if (fullRedraw) {
+            drawEverything(gc);
+            fullRedraw = false;
+        } else {
+            for (int cell = dirtyCells.nextSetBit(0); cell >= 0; cell = dirtyCells.nextSetBit(cell + 1)) {
+                drawCell(gc, cell);
+            }
+        }
+        dirtyCells.clear();
+    }
 
-                if (tile.isBarricaded()) {
-                    gc.setStroke(Color.GOLDENROD);
-                    gc.setLineWidth(2);
-                    gc.strokeLine(px, py, px + cellSize, py + cellSize);
-                    gc.strokeLine(px, py + cellSize, px + cellSize, py);
-                }
-                if (tile.hasLava()) {
-                    gc.setFill(Color.color(0.85, 0.25, 0.1, 0.8));
-                    gc.fillRect(px, py, cellSize, cellSize);
+    private void markMovedCitizens() {
+        Map<Integer, List<CitizenView>> byCell = new HashMap<>();
+        Map<Integer, Integer> stillDrawn = new HashMap<>();
+        for (CitizenView citizen : citizens) {
+            int current = citizen.position().y() * width + citizen.position().x();
+            byCell.computeIfAbsent(current, key -> new ArrayList<>()).add(citizen);
+            Integer drawn = drawnCitizenCells.remove(citizen.id());
+            if (drawn == null || drawn != current) {
+                dirtyCells.set(current);
+                if (drawn != null) {
+                    dirtyCells.set(drawn);
                 }
             }
+            stillDrawn.put(citizen.id(), current);
         }
+        // Whoever is left was saved or lost since the last frame.
+        drawnCitizenCells.values().forEach(dirtyCells::set);
+        drawnCitizenCells.clear();
+        drawnCitizenCells.putAll(stillDrawn);
+        citizensByCell = byCell;
     }
 
-    private void drawCitizens(GraphicsContext gc) {
-        gc.setFont(Font.font(cellSize * 0.4));
-        gc.setTextAlign(TextAlignment.CENTER);
-        gc.setTextBaseline(VPos.CENTER);
-        for (Citizen citizen : engine.getState().getCitizens()) {
-            if (!citizen.isAlive() || citizen.isSafe()) {
-                continue;
-            }
-            Position position = citizen.getPosition();
-            double px = position.x() * cellSize;
-            double py = position.y() * cellSize;
-            double diameter = cellSize * 0.35;
-            double cx = px + cellSize / 2;
-            double cy = py + cellSize / 2;
-            gc.setFill(citizen.getType().name().equals("FAST") ? Color.CORNFLOWERBLUE : Color.LIGHTBLUE);
-            gc.fillOval(cx - diameter / 2, cy - diameter / 2, diameter, diameter);
-            Color priorityColor = switch (citizen.getPriority()) {
-                case 3 -> Color.GOLD;
-                case 2 -> Color.ORANGE;
-                default -> Color.SLATEGRAY;
-            };
-            gc.setStroke(priorityColor);
-            gc.setLineWidth(2);
-            gc.strokeOval(cx - diameter / 2, cy - diameter / 2, diameter, diameter);
-            gc.setFill(Color.BLACK);
-            gc.fillText(String.valueOf(citizen.getId()), cx, cy);
+    private void drawEverything(GraphicsContext gc) {
+        gc.setFill(Color.BLACK);
+        gc.fillRect(0, 0, canvas.getWidth(), canvas.getHeight());
+        double mapWidth = width * cellSize;
+        double mapHeight = height * cellSize;
+        gc.drawImage(staticLayer, 0, 0, mapWidth, mapHeight);
+        BitSet overlays = (BitSet) lava.clone();
+        overlays.or(barricades);
+        for (int cell = overlays.nextSetBit(0); cell >= 0; cell = overlays.nextSetBit(cell + 1)) {
+            drawOverlays(gc, cell);
+        }
+        for (CitizenView citizen : citizens) {
+            drawCitizen(gc, citizen);
+        }
+        gc.setFill(GRID_LINE);
+        for (int x = 0; x <= width; x++) {
+            gc.fillRect(x * cellSize, 0, 1, mapHeight);
+        }
+        for (int y = 0; y <= height; y++) {
+            gc.fillRect(0, y * cellSize, mapWidth, 1);
         }
     }
 
-    private void drawGrid(GraphicsContext gc, GameMap map) {
-        gc.setStroke(Color.color(0, 0, 0, 0.2));
-        gc.setLineWidth(1);
-        for (int x = 0; x <= map.getWidth(); x++) {
-            double px = x * cellSize;
-            gc.strokeLine(px, 0, px, map.getHeight() * cellSize);
+    private void drawCell(GraphicsContext gc, int cell) {
+        int x = cell % width;
+        int y = cell / width;
+        double px = x * cellSize;
+        double py = y * cellSize;
+        gc.drawImage(staticLayer, x, y, 1, 1, px, py, cellSize, cellSize);
+        drawOverlays(gc, cell);
+        for (CitizenView citizen : citizensByCell.getOrDefault(cell, List.of())) {
+            drawCitizen(gc, citizen);
         }
-        for (int y = 0; y <= map.getHeight(); y++) {
-            double py = y * cellSize;
-            gc.strokeLine(0, py, map.getWidth() * cellSize, py);
+        gc.setFill(GRID_LINE);
+        gc.fillRect(px, py, cellSize, 1);
+        gc.fillRect(px, py, 1, cellSize);
+    }
+
+    private void drawOverlays(GraphicsContext gc, int cell) {
+        boolean barricaded = barricades.get(cell);
+        boolean burning = lava.get(cell);
+        if (!barricaded && !burning) {
+            return;
+        }
+        double px = (cell % width) * cellSize;
+        double py = (cell / width) * cellSize;
+        if (barricaded) {
+            gc.save();
+            gc.beginPath();
+            gc.rect(px, py, cellSize, cellSize);
+            gc.clip();
+            gc.setStroke(Color.GOLDENROD);
+            gc.setLineWidth(2);
+            gc.strokeLine(px, py, px + cellSize, py + cellSize);
+            gc.strokeLine(px, py + cellSize, px + cellSize, py);
+            gc.restore();
+        }
+        if (burning) {
+            gc.setFill(LAVA);
+            gc.fillRect(px, py, cellSize, cellSize);
         }
     }
 
+    private void drawCitizen(GraphicsContext gc, CitizenView citizen) {
+        Position position = citizen.position();
+        double px = position.x() * cellSize;
+        double py = position.y() * cellSize;
+        double diameter = cellSize * 0.35;
+        double cx = px + cellSize / 2;
+        double cy = py + cellSize / 2;
+        gc.setFill(citizen.type().name().equals("FAST") ? Color.CORNFLOWERBLUE : Color.LIGHTBLUE);
+        gc.fillOval(cx - diameter / 2, cy - diameter / 2, diameter, diameter);
+        Color priorityColor = switch (citizen.priority()) {
+            case 3 -> Color.GOLD;
+            case 2 -> Color.ORANGE;
+            default -> Color.SLATEGRAY;
+        };
+        gc.setStroke(priorityColor);
+        gc.setLineWidth(2);
+        gc.strokeOval(cx - diameter / 2, cy - diameter / 2, diameter, diameter);
+        gc.setFill(Color.BLACK);
+        // Capped to the cell so labels never bleed into cells that are not repainted.
+        gc.fillText(String.valueOf(citizen.id()), cx, cy, cellSize);
+    }
+
+    private static Color baseColor(TileType type) {
+        return switch (type) {
+            case ROAD -> Color.DARKGRAY;
+            case HOUSE -> Color.BEIGE;
+            case SAFE_ZONE -> Color.DARKSEAGREEN;
+            case VOLCANO -> Color.DARKRED;
+            case WALL -> Color.DIMGRAY;
+        };
+    }
+
     public Position pickCell(double canvasX, double canvasY) {
         if (cellSize <= 0) {
             return new Position(0, 0);
         }
         int gridX = (int) Math.floor(canvasX / cellSize);
         int gridY = (int) Math.floor(canvasY / cellSize);
-        GameMap map = engine.getState().getConfig().getMap();
-        gridX = Math.max(0, Math.min(map.getWidth() - 1, gridX));
-        gridY = Math.max(0, Math.min(map.getHeight() - 1, gridY));
+        gridX = Math.max(0, Math.min(width - 1, gridX));
+        gridY = Math.max(0, Math.min(height - 1, gridY));
         return new Position(gridX, gridY);
     }
 }
@@ -3,6 +3,8 @@ module com.andr3yqq.vulcanoeruptiongame {
     requires javafx.fxml;
     requires javafx.media;
     requires static lombok;
+    requires jdk.jfr;
+    requires jdk.management;
 
     requires org.controlsfx.controls;
     requires com.dlsc.formsfx;